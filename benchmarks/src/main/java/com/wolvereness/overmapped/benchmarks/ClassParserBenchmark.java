@@ -0,0 +1,65 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.wolvereness.overmapped.asm.ByteClass;
+
+/**
+ * Measures constructing a {@link ByteClass}, which reads the class file and
+ * collects its hierarchy and members.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassParserBenchmark {
+	@Param({"10", "100", "1000"})
+	public int members;
+
+	@Param({"class", "enum"})
+	public String kind;
+
+	private Map.Entry<String, byte[]> classFile;
+
+	@Setup
+	public void setup() {
+		classFile = SyntheticClasses.newClassFile(kind, members);
+	}
+
+	@Benchmark
+	public ByteClass parse() throws IOException {
+		return SyntheticClasses.newByteClass(classFile);
+	}
+}
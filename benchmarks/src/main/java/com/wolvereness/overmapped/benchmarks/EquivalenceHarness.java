@@ -0,0 +1,378 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.logging.Log;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.util.TraceClassVisitor;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * Runs the mojo on the same input under each execution mode and checks that
+ * every output matches that of the first mode. Entries must have the same
+ * names in the same order; when the bytes of a class differ, the classes
+ * are compared again after sorting their members, and are reported as
+ * equivalent if only the order changed. Entry times are not compared, as
+ * written classes are stamped with the current time. Arguments are
+ * optional:
+ * <pre>
+ * --engines=own,shared,concurrent,cached,rules
+ *                   the engines, being a processor per run, the JVM-wide
+ *                   shared engine, the shared engine with every run of a
+ *                   mode at once, a processor per run with a cache
+ *                   directory and libraries, or a processor per run with
+ *                   rules
+ * --cores=1,2,4,8   the modes of each engine, where 1 runs without extra
+ *                   threads
+ * --repeat=3        runs per mode, to catch races
+ * --seeds=1,2,3     generated jars, of 2000 classes each
+ * --input=a.jar --maps=a.yml   an existing jar to use instead
+ * --libraries=rt.jar  the libraries of the cached engine, by default the
+ *                   runtime of the JVM; none of their classes may be
+ *                   mapped
+ * --dir=target/equivalence
+ * </pre>
+ * The cached engine always makes three runs on an empty cache directory:
+ * the first fills it, the second reads every class from the class index,
+ * library index, and remap cache, and the third restores the whole run.
+ * The rules engine appends a section of rules that keep every name and
+ * flag, such that its output must not change.
+ * Exits with status 1 if any output differs.
+ */
+public final class EquivalenceHarness {
+	private static final int CLASSES = 2000;
+	private static final String OWN = "own";
+	private static final String SHARED = "shared";
+	private static final String CONCURRENT = "concurrent";
+	private static final String CACHED = "cached";
+	private static final String RULES = "rules";
+	private static final String IDENTITY_RULES = ""
+		+ "- memberRules:\n"
+		+ "    \". ^(.*)$ .\": \"$1\"\n"
+		+ "  flagRules:\n"
+		+ "    \". . .\": { add: 0 }\n";
+
+	private EquivalenceHarness() {
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final Map<String, String> options = ScalingHarness.parseOptions(args);
+		final List<String> engines = Arrays.asList(ScalingHarness.get(options, "engines", "own,shared,concurrent,cached,rules").split(","));
+		for (final String engine : engines) {
+			if (!(engine.equals(OWN) || engine.equals(SHARED) || engine.equals(CONCURRENT) || engine.equals(CACHED) || engine.equals(RULES)))
+				throw new IllegalArgumentException("Unknown engine " + engine);
+		}
+		final List<File> libraries = newArrayList();
+		if (options.containsKey("libraries")) {
+			for (final String library : options.get("libraries").split(",")) {
+				libraries.add(new File(library));
+			}
+		} else {
+			final File home = new File(System.getProperty("java.home"));
+			final File runtime = new File(home, "lib/rt.jar");
+			libraries.add(runtime.isFile() ? runtime : new File(home, "jmods"));
+		}
+		final List<Integer> coreCounts = ScalingHarness.parseInts(ScalingHarness.get(options, "cores", "1,2,4,8"));
+		final int repeat = Integer.parseInt(ScalingHarness.get(options, "repeat", "3"));
+		final File dir = new File(ScalingHarness.get(options, "dir", "target/equivalence"));
+		dir.mkdirs();
+
+		final Map<File, File> inputs = newLinkedHashMap();
+		if (options.containsKey("input")) {
+			inputs.put(new File(options.get("input")), new File(ScalingHarness.get(options, "maps", "maps.yml")));
+		} else {
+			for (final int seed : ScalingHarness.parseInts(ScalingHarness.get(options, "seeds", "1,2,3"))) {
+				final File input = new File(dir, "input-" + seed + ".jar");
+				final File maps = new File(dir, "maps-" + seed + ".yml");
+				final SyntheticJar jar = new SyntheticJar(seed)
+					.classes(CLASSES)
+					.interfaces(CLASSES / 10)
+					.diamonds(0.5)
+					.enums(CLASSES / 50)
+					.memberMaps(0.3)
+					.flagMaps(0.05)
+					.regexMaps(2);
+				jar.writeJar(input);
+				jar.writeMaps(maps);
+				inputs.put(input, maps);
+			}
+		}
+
+		final Log log = MojoRunner.newQuietLog();
+		int failures = 0;
+		for (final Map.Entry<File, File> input : inputs.entrySet()) {
+			Map<String, byte[]> expected = null;
+			String expectedMode = null;
+			for (final String engine : engines) {
+				for (final int cores : coreCounts) {
+					final List<File> outputs = run(engine, cores, repeat, input.getKey(), input.getValue(), libraries, dir, log);
+					for (int i = 0; i < outputs.size(); i++) {
+						final String mode = engine + " cores=" + cores + " run " + (i + 1);
+						final Map<String, byte[]> actual = readEntries(outputs.get(i));
+						outputs.get(i).delete();
+
+						if (expected == null) {
+							expected = actual;
+							expectedMode = mode;
+							continue;
+						}
+						final List<String> reordered = newArrayList();
+						final List<String> differences = compare(expected, actual, reordered);
+						if (differences.isEmpty()) {
+							System.out.println(String.format(
+								"%s %s: %s %s",
+								input.getKey().getName(),
+								mode,
+								reordered.isEmpty() ? "identical to" : reordered.size() + " class(es) only reorder members of",
+								expectedMode
+								));
+						} else {
+							failures++;
+							System.out.println(String.format("%s %s: differs from %s", input.getKey().getName(), mode, expectedMode));
+							for (final String difference : differences) {
+								System.out.println("  " + difference);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		if (failures != 0) {
+			System.out.println(failures + " run(s) differ");
+			System.exit(1);
+		}
+		System.out.println("Every output is identical");
+	}
+
+	/**
+	 * @return the outputs of each run, in order
+	 */
+	private static List<File> run(
+	                              final String engine,
+	                              final int cores,
+	                              final int repeat,
+	                              final File input,
+	                              final File maps,
+	                              final List<File> libraries,
+	                              final File dir,
+	                              final Log log
+	                              ) throws
+	                              Exception
+	                              {
+		if (engine.equals(CACHED))
+			return runCached(cores, input, maps, libraries, dir, log);
+		final File engineMaps;
+		if (engine.equals(RULES)) {
+			engineMaps = new File(dir, "rules-" + maps.getName());
+			Files.copy(maps, engineMaps);
+			Files.append("\n" + IDENTITY_RULES, engineMaps, Charsets.UTF_8);
+		} else {
+			engineMaps = maps;
+		}
+
+		final List<File> outputs = newArrayList();
+		final List<MojoRunner> runners = newArrayList();
+		for (int i = 0; i < repeat; i++) {
+			final File output = new File(dir, "output-" + i + ".jar");
+			outputs.add(output);
+			runners.add(new MojoRunner()
+				.set("maps", engineMaps)
+				.set("input", input)
+				.set("output", output)
+				.set("cores", cores)
+				.set("shared", engine.equals(SHARED) || engine.equals(CONCURRENT))
+				);
+		}
+		if (!engine.equals(CONCURRENT)) {
+			for (final MojoRunner runner : runners) {
+				runner.run(log);
+			}
+			return outputs;
+		}
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		final List<Thread> threads = newArrayList();
+		for (final MojoRunner runner : runners) {
+			final Thread thread = new Thread(new Runnable()
+				{
+					@Override
+					public void run() {
+						try {
+							start.await();
+							runner.run(log);
+						} catch (final Throwable ex) {
+							failures.add(ex);
+						}
+					}
+				});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		if (!failures.isEmpty())
+			throw new IllegalStateException("Concurrent run failed", failures.get(0));
+		return outputs;
+	}
+
+	/**
+	 * @return the outputs of a cold run, a run reading every class from the
+	 *     caches, and a restored run
+	 */
+	private static List<File> runCached(
+	                                    final int cores,
+	                                    final File input,
+	                                    final File maps,
+	                                    final List<File> libraries,
+	                                    final File dir,
+	                                    final Log log
+	                                    ) throws
+	                                    Exception
+	                                    {
+		final File cache = new File(dir, "cache");
+		delete(cache);
+		final List<File> outputs = newArrayList();
+		for (int i = 0; i < 3; i++) {
+			final File output = new File(dir, "output-" + i + ".jar");
+			outputs.add(output);
+			new MojoRunner()
+				.set("maps", maps)
+				.set("input", input)
+				.set("output", output)
+				.set("cores", cores)
+				.set("cacheDirectory", cache)
+				.set("libraries", libraries.toArray(new File[libraries.size()]))
+				.run(log);
+			if (i == 0) {
+				// Such that the second run remaps instead of restoring
+				delete(new File(cache, "runs"));
+			}
+		}
+		delete(cache);
+		return outputs;
+	}
+
+	private static void delete(final File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (final File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static Map<String, byte[]> readEntries(final File file) throws IOException {
+		final Map<String, byte[]> entries = newLinkedHashMap();
+		final ZipFile zip = new ZipFile(file);
+		try {
+			final Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+			while (zipEntries.hasMoreElements()) {
+				final ZipEntry entry = zipEntries.nextElement();
+				entries.put(entry.getName(), ByteStreams.toByteArray(zip.getInputStream(entry)));
+			}
+		} finally {
+			zip.close();
+		}
+		return entries;
+	}
+
+	/**
+	 * @param reordered the classes that only differ in the order of members
+	 * @return a description of every other difference
+	 */
+	private static List<String> compare(final Map<String, byte[]> expected, final Map<String, byte[]> actual, final List<String> reordered) {
+		final List<String> differences = newArrayList();
+		if (!newArrayList(expected.keySet()).equals(newArrayList(actual.keySet()))) {
+			differences.add("Entries differ: " + expected.keySet() + " != " + actual.keySet());
+			return differences;
+		}
+		for (final Map.Entry<String, byte[]> entry : expected.entrySet()) {
+			final byte[] actualBytes = actual.get(entry.getKey());
+			if (Arrays.equals(entry.getValue(), actualBytes)) {
+				continue;
+			}
+			if (entry.getKey().endsWith(".class") && normalize(entry.getValue()).equals(normalize(actualBytes))) {
+				reordered.add(entry.getKey());
+			} else {
+				differences.add(entry.getKey() + " differs");
+			}
+		}
+		return differences;
+	}
+
+	private static String normalize(final byte[] bytes) {
+		final ClassNode node = new ClassNode();
+		new ClassReader(bytes).accept(node, 0);
+		// Copied, as the lists of ASM 4 are raw
+		final List<FieldNode> fields = newArrayList();
+		for (final Object field : node.fields) {
+			fields.add((FieldNode) field);
+		}
+		final List<MethodNode> methods = newArrayList();
+		for (final Object method : node.methods) {
+			methods.add((MethodNode) method);
+		}
+		Collections.sort(fields, new Comparator<FieldNode>()
+			{
+				@Override
+				public int compare(final FieldNode o1, final FieldNode o2) {
+					return (o1.name + ' ' + o1.desc).compareTo(o2.name + ' ' + o2.desc);
+				}
+			});
+		Collections.sort(methods, new Comparator<MethodNode>()
+			{
+				@Override
+				public int compare(final MethodNode o1, final MethodNode o2) {
+					return (o1.name + o1.desc).compareTo(o2.name + o2.desc);
+				}
+			});
+		node.fields = fields;
+		node.methods = methods;
+		final StringWriter text = new StringWriter();
+		node.accept(new TraceClassVisitor(new PrintWriter(text)));
+		return text.toString();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import static com.google.common.collect.Maps.*;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+import com.wolvereness.overmapped.OverMapped;
+
+/**
+ * Runs the mojo outside of Maven, injecting parameters by field name the way
+ * Maven would. Parameters start at the defaults documented in the README,
+ * except progress lines, which are disabled.
+ */
+final class MojoRunner {
+	private final Map<String, Object> parameters = newLinkedHashMap();
+
+	MojoRunner() {
+		parameters.put("cores", 2);
+		parameters.put("missing", "WARN");
+		parameters.put("slowestClasses", 0);
+		parameters.put("progressInterval", 0);
+		parameters.put("memoryReport", false);
+		parameters.put("shared", false);
+		parameters.put("findParents", false);
+		parameters.put("correctEnums", true);
+	}
+
+	/**
+	 * @param name the name of the parameter in the pom, which is also the
+	 *     name of the field
+	 */
+	MojoRunner set(final String name, final Object value) {
+		parameters.put(name, value);
+		return this;
+	}
+
+	void run(final Log log) throws MojoExecutionException, MojoFailureException {
+		final OverMapped mojo = new OverMapped();
+		for (final Map.Entry<String, Object> parameter : parameters.entrySet()) {
+			try {
+				final Field field = OverMapped.class.getDeclaredField(parameter.getKey());
+				field.setAccessible(true);
+				field.set(mojo, parameter.getValue());
+			} catch (final ReflectiveOperationException ex) {
+				throw new IllegalArgumentException("Cannot set parameter " + parameter.getKey(), ex);
+			}
+		}
+		mojo.setLog(log);
+		mojo.execute();
+	}
+
+	/**
+	 * @return a log that only shows warnings and errors
+	 */
+	static Log newQuietLog() {
+		return new SystemStreamLog()
+			{
+				@Override
+				public boolean isInfoEnabled() {
+					return false;
+				}
+
+				@Override
+				public void info(final CharSequence content) {
+				}
+
+				@Override
+				public void info(final CharSequence content, final Throwable error) {
+				}
+
+				@Override
+				public void info(final Throwable error) {
+				}
+			};
+	}
+}
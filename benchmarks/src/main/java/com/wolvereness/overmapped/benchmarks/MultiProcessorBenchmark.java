@@ -0,0 +1,138 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.wolvereness.overmapped.lib.MultiProcessor;
+
+/**
+ * Measures submitting a batch of tasks and then getting every result, the
+ * pattern used to read and write classes. A {@link MultiProcessor} for a
+ * number of cores starts one less thread, as the caller runs tasks while
+ * waiting; the standard executors are given a thread per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiProcessorBenchmark {
+	private interface Engine {
+		<T> Future<T> submit(Callable<T> task);
+
+		void shutdown();
+	}
+
+	@Param({"multiProcessor", "fixedThreadPool"})
+	public String engine;
+
+	@Param({"1", "2", "4"})
+	public int cores;
+
+	@Param({"1000"})
+	public int tasks;
+
+	@Param({"10", "1000"})
+	public int work;
+
+	private Engine executor;
+	private Future<?>[] futures;
+	private Callable<Object> task;
+
+	@Setup
+	public void setup() {
+		final ThreadFactory factory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("benchmark-%d").build();
+		if (engine.equals("multiProcessor")) {
+			final MultiProcessor processor = MultiProcessor.newMultiProcessor(cores - 1, factory);
+			executor = new Engine()
+				{
+					@Override
+					public <T> Future<T> submit(final Callable<T> task) {
+						return processor.submit(task);
+					}
+
+					@Override
+					public void shutdown() {
+						processor.shutdown();
+					}
+				};
+		} else {
+			final ExecutorService service = Executors.newFixedThreadPool(cores, factory);
+			executor = new Engine()
+				{
+					@Override
+					public <T> Future<T> submit(final Callable<T> task) {
+						return service.submit(task);
+					}
+
+					@Override
+					public void shutdown() {
+						service.shutdownNow();
+					}
+				};
+		}
+		futures = new Future<?>[tasks];
+		final int work = this.work;
+		task = new Callable<Object>()
+			{
+				@Override
+				public Object call() {
+					Blackhole.consumeCPU(work);
+					return this;
+				}
+			};
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public void submitAndGet(final Blackhole blackhole) throws InterruptedException, ExecutionException {
+		final Future<?>[] futures = this.futures;
+		for (int i = 0; i < futures.length; i++) {
+			futures[i] = executor.submit(task);
+		}
+		for (final Future<?> future : futures) {
+			blackhole.consume(future.get());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import static com.google.common.collect.Maps.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.google.common.collect.ImmutableList;
+import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.FlagTable;
+import com.wolvereness.overmapped.asm.Signature;
+
+/**
+ * Measures {@link ByteClass#call(Map, Map, Map, FlagTable,
+ * com.wolvereness.overmapped.asm.MemberRules, boolean) remapping and writing}
+ * a class, with every member renamed. FlagSetter is always applied, either
+ * passing members through or changing their flags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemapBenchmark {
+	@Param({"10", "100", "1000"})
+	public int members;
+
+	@Param({"class", "enum"})
+	public String kind;
+
+	@Param({"false", "true"})
+	public boolean correctEnums;
+
+	@Param({"none", "exact", "rules"})
+	public String flags;
+
+	private ByteClass clazz;
+	private Map<String, ByteClass> classes;
+	private BiMap<Signature, Signature> signatures;
+	private Map<String, String> classMaps;
+	private FlagTable flagTable;
+
+	@Setup
+	public void setup() throws IOException {
+		clazz = SyntheticClasses.newByteClass(SyntheticClasses.newClassFile(kind, members));
+		classes = newHashMap();
+		classes.put(clazz.getToken(), clazz);
+
+		classMaps = newHashMap();
+		classMaps.put(clazz.getToken(), clazz.getToken());
+
+		signatures = HashBiMap.create();
+		final Map<Signature, Integer> flagMap = newHashMap();
+		for (final Signature signature : clazz.getLocalSignatures()) {
+			signatures.put(signature, signature.isConstructor() ? signature : signature.forElementName(signature.getElementName() + "_mapped"));
+			if (flags.equals("exact")) {
+				flagMap.put(signature, 1);
+			}
+		}
+
+		final List<FlagTable.Rule> rules = flags.equals("rules")
+			? ImmutableList.of(new FlagTable.Rule(Pattern.compile("^gen/"), Pattern.compile("_mapped$"), Pattern.compile(""), null, 1, 0))
+			: Collections.<FlagTable.Rule>emptyList();
+		flagTable = new FlagTable(flagMap, rules);
+	}
+
+	@Benchmark
+	public Pair<ZipEntry, byte[]> remap() throws Exception {
+		return clazz.call(signatures, classMaps, classes, flagTable, null, correctEnums);
+	}
+}
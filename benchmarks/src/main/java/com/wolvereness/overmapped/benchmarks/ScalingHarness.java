@@ -0,0 +1,295 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.google.common.base.Splitter;
+import com.google.common.io.Files;
+
+/**
+ * Runs the whole mojo on generated jars of increasing size, at each number
+ * of cores, and reports how the wall time scales. Arguments are optional:
+ * <pre>
+ * --classes=1000,10000,100000,500000
+ * --cores=1,2,4,...,available processors
+ * --seed=1
+ * --repeat=3      runs per point; the run with the median wall time is kept
+ * --dir=target/scaling
+ * </pre>
+ * Larger jars need a larger heap, such as -Xmx8g for 500000 classes. The
+ * peak heap is the sum of each heap pool's peak, so it is an upper bound.
+ * Results are written to scaling.csv and phases.csv in the directory.
+ */
+public final class ScalingHarness {
+	private static final class Result {
+		final int classes;
+		final int cores;
+		final long wallNanos;
+		final long peakHeap;
+		final long outputSize;
+		final Map<String, long[]> phases;
+
+		Result(
+		       final int classes,
+		       final int cores,
+		       final long wallNanos,
+		       final long peakHeap,
+		       final long outputSize,
+		       final Map<String, long[]> phases
+		       ) {
+			this.classes = classes;
+			this.cores = cores;
+			this.wallNanos = wallNanos;
+			this.peakHeap = peakHeap;
+			this.outputSize = outputSize;
+			this.phases = phases;
+		}
+	}
+
+	private ScalingHarness() {
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final Map<String, String> options = parseOptions(args);
+		final List<Integer> sizes = parseInts(get(options, "classes", "1000,10000,100000,500000"));
+		final List<Integer> coreCounts = parseInts(get(options, "cores", defaultCores()));
+		final long seed = Long.parseLong(get(options, "seed", "1"));
+		final int repeat = Integer.parseInt(get(options, "repeat", "3"));
+		final File dir = new File(get(options, "dir", "target/scaling"));
+		dir.mkdirs();
+
+		final Log log = MojoRunner.newQuietLog();
+		final List<Result> results = newArrayList();
+		boolean warm = false;
+		for (final int classes : sizes) {
+			final File input = new File(dir, "input-" + classes + ".jar");
+			final File maps = new File(dir, "maps-" + classes + ".yml");
+			final SyntheticJar jar = new SyntheticJar(seed)
+				.classes(classes)
+				.interfaces(Math.max(1, classes / 20))
+				.enums(Math.max(1, classes / 100));
+			jar.writeJar(input);
+			jar.writeMaps(maps);
+
+			if (!warm) {
+				run(log, input, maps, dir, classes, coreCounts.get(coreCounts.size() - 1));
+				warm = true;
+			}
+
+			Result baseline = null;
+			for (final int cores : coreCounts) {
+				final List<Result> runs = newArrayList();
+				for (int i = 0; i < repeat; i++) {
+					runs.add(run(log, input, maps, dir, classes, cores));
+				}
+				Collections.sort(runs, new Comparator<Result>()
+					{
+						@Override
+						public int compare(final Result o1, final Result o2) {
+							return o1.wallNanos < o2.wallNanos ? -1 : o1.wallNanos == o2.wallNanos ? 0 : 1;
+						}
+					});
+				final Result result = runs.get(runs.size() / 2);
+				if (baseline == null) {
+					baseline = result;
+				}
+				results.add(result);
+				print(result, baseline);
+			}
+		}
+
+		write(new File(dir, "scaling.csv"), new File(dir, "phases.csv"), results);
+	}
+
+	private static Result run(
+	                          final Log log,
+	                          final File input,
+	                          final File maps,
+	                          final File dir,
+	                          final int classes,
+	                          final int cores
+	                          ) throws Exception {
+		final File output = new File(dir, "output.jar");
+		final File timings = new File(dir, "timings.csv");
+		final List<MemoryPoolMXBean> pools = getHeapPools();
+
+		System.gc();
+		for (final MemoryPoolMXBean pool : pools) {
+			pool.resetPeakUsage();
+		}
+		final long start = System.nanoTime();
+		new MojoRunner()
+			.set("maps", maps)
+			.set("input", input)
+			.set("output", output)
+			.set("cores", cores)
+			.set("timingsFile", timings)
+			.run(log);
+		final long wall = System.nanoTime() - start;
+
+		long peakHeap = 0;
+		for (final MemoryPoolMXBean pool : pools) {
+			peakHeap += pool.getPeakUsage().getUsed();
+		}
+		final Result result = new Result(classes, cores, wall, peakHeap, output.length(), readPhases(timings));
+		output.delete();
+		timings.delete();
+		return result;
+	}
+
+	private static List<MemoryPoolMXBean> getHeapPools() {
+		final List<MemoryPoolMXBean> pools = newArrayList();
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pools.add(pool);
+			}
+		}
+		return pools;
+	}
+
+	/**
+	 * @return the wall and CPU nanoseconds of each phase, summed over layers
+	 */
+	private static Map<String, long[]> readPhases(final File timings) throws IOException {
+		final Map<String, long[]> phases = newLinkedHashMap();
+		final List<String> lines = Files.readLines(timings, Charset.forName("UTF8"));
+		for (final String line : lines.subList(1, lines.size())) {
+			final List<String> columns = newArrayList(Splitter.on(',').split(line));
+			long[] times = phases.get(columns.get(0));
+			if (times == null) {
+				phases.put(columns.get(0), times = new long[2]);
+			}
+			times[0] += Long.parseLong(columns.get(2));
+			times[1] += Long.parseLong(columns.get(3));
+		}
+		return phases;
+	}
+
+	private static void print(final Result result, final Result baseline) {
+		final double speedup = baseline.wallNanos / (double) result.wallNanos;
+		final double efficiency = speedup * baseline.cores / result.cores;
+		final StringBuilder phases = new StringBuilder();
+		for (final Map.Entry<String, long[]> phase : result.phases.entrySet()) {
+			final long millis = TimeUnit.NANOSECONDS.toMillis(phase.getValue()[0]);
+			if (millis != 0) {
+				phases.append(' ').append(phase.getKey()).append('=').append(millis);
+			}
+		}
+		System.out.println(String.format(
+			"%8d classes %3d cores %8d ms %6.2fx speedup %5.1f%% efficiency %8.1f MB peak heap %8.1f MB output |%s",
+			result.classes,
+			result.cores,
+			TimeUnit.NANOSECONDS.toMillis(result.wallNanos),
+			speedup,
+			efficiency * 100,
+			result.peakHeap / (double) (1 << 20),
+			result.outputSize / (double) (1 << 20),
+			phases
+			));
+	}
+
+	private static void write(final File scaling, final File phases, final List<Result> results) throws IOException {
+		final Writer scalingWriter = Files.newWriter(scaling, Charset.forName("UTF8"));
+		try {
+			scalingWriter.write("classes,cores,wallNanos,peakHeapBytes,outputBytes\n");
+			for (final Result result : results) {
+				scalingWriter.write(String.format(
+					Locale.ROOT,
+					"%d,%d,%d,%d,%d\n",
+					result.classes,
+					result.cores,
+					result.wallNanos,
+					result.peakHeap,
+					result.outputSize
+					));
+			}
+		} finally {
+			scalingWriter.close();
+		}
+
+		final Writer phasesWriter = Files.newWriter(phases, Charset.forName("UTF8"));
+		try {
+			phasesWriter.write("classes,cores,phase,wallNanos,cpuNanos\n");
+			for (final Result result : results) {
+				for (final Map.Entry<String, long[]> phase : result.phases.entrySet()) {
+					phasesWriter.write(String.format(
+						Locale.ROOT,
+						"%d,%d,%s,%d,%d\n",
+						result.classes,
+						result.cores,
+						phase.getKey(),
+						phase.getValue()[0],
+						phase.getValue()[1]
+						));
+				}
+			}
+		} finally {
+			phasesWriter.close();
+		}
+	}
+
+	static Map<String, String> parseOptions(final String[] args) {
+		final Map<String, String> options = newHashMap();
+		for (final String arg : args) {
+			final int split = arg.indexOf('=');
+			if (!arg.startsWith("--") || split == -1)
+				throw new IllegalArgumentException("Expected --name=value: " + arg);
+			options.put(arg.substring(2, split), arg.substring(split + 1));
+		}
+		return options;
+	}
+
+	static String get(final Map<String, String> options, final String name, final String defaultValue) {
+		final String value = options.get(name);
+		return value != null ? value : defaultValue;
+	}
+
+	static List<Integer> parseInts(final String value) {
+		final List<Integer> ints = newArrayList();
+		for (final String part : Splitter.on(',').trimResults().omitEmptyStrings().split(value)) {
+			ints.add(Integer.valueOf(part));
+		}
+		return ints;
+	}
+
+	static String defaultCores() {
+		final int processors = Runtime.getRuntime().availableProcessors();
+		final StringBuilder cores = new StringBuilder();
+		for (int i = 1; i < processors; i *= 2) {
+			cores.append(i).append(',');
+		}
+		return cores.append(processors).toString();
+	}
+}
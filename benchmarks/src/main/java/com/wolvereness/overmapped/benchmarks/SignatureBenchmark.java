@@ -0,0 +1,129 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import static com.google.common.collect.Maps.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.Signature;
+
+/**
+ * Measures hashing new signatures, and looking up signatures in a map the
+ * size of a large jar's members, as done for every member reference when
+ * remapping.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureBenchmark {
+	private static final int MEMBERS_PER_CLASS = 20;
+	private static final int LOOKUPS = 1 << 12;
+
+	@Param({"10000", "1000000"})
+	public int size;
+
+	@Param({"8"})
+	public int depth;
+
+	private final BiMap<Signature, Signature> signatures = HashBiMap.create();
+	private final Map<String, ByteClass> classes = newHashMap();
+	private final Signature.MutableSignature signature = Signature.newMutableSignature("", "", "");
+	private String[] classNames;
+	private String[] memberNames;
+	private String leafName;
+	private String[] leafMemberNames;
+	private int index;
+
+	@Setup
+	public void setup() throws IOException {
+		classNames = new String[LOOKUPS];
+		memberNames = new String[LOOKUPS];
+		for (int i = 0; i < size; i++) {
+			final Signature key = Signature.newSignature(getClassName(i / MEMBERS_PER_CLASS), "method" + i % MEMBERS_PER_CLASS, "(I)I");
+			signatures.put(key, key.forElementName(key.getElementName() + "_mapped"));
+		}
+		for (int i = 0; i < LOOKUPS; i++) {
+			final int member = (int) ((i * 0x9E3779B97F4A7C15L >>> 16) % size);
+			classNames[i] = getClassName(member / MEMBERS_PER_CLASS);
+			memberNames[i] = "method" + member % MEMBERS_PER_CLASS;
+		}
+
+		final SyntheticJar chain = new SyntheticJar(SyntheticClasses.SEED).classes(depth).depth(depth).fanOut(1).interfaces(0).enums(0).members(0);
+		String rootName = null;
+		for (final Map.Entry<String, byte[]> classFile : chain.getClassFiles().entrySet()) {
+			final ByteClass clazz = SyntheticClasses.newByteClass(classFile);
+			classes.put(leafName = clazz.getToken(), clazz);
+			if (rootName == null) {
+				rootName = leafName;
+			}
+		}
+		leafMemberNames = new String[MEMBERS_PER_CLASS];
+		for (int i = 0; i < MEMBERS_PER_CLASS; i++) {
+			final Signature key = Signature.newSignature(rootName, leafMemberNames[i] = "method" + i, "(I)I");
+			signatures.put(key, key.forElementName(key.getElementName() + "_mapped"));
+		}
+	}
+
+	private static String getClassName(final int index) {
+		return "bench/p" + index % 100 + "/Class" + index;
+	}
+
+	@Benchmark
+	public int hashNew() {
+		final int i = index++ & LOOKUPS - 1;
+		return Signature.newSignature(classNames[i], memberNames[i], "(I)I").hashCode();
+	}
+
+	@Benchmark
+	public Signature updateHit() {
+		final int i = index++ & LOOKUPS - 1;
+		return signature.update(classNames[i], memberNames[i], "(I)I", signatures);
+	}
+
+	@Benchmark
+	public Signature updateMiss() {
+		final int i = index++ & LOOKUPS - 1;
+		return signature.update(classNames[i], memberNames[i], "(J)J", signatures);
+	}
+
+	@Benchmark
+	public Signature updateInherited() {
+		final int i = index++ % MEMBERS_PER_CLASS;
+		return signature.update(leafName, leafMemberNames[i], "(I)I", signatures, classes);
+	}
+}
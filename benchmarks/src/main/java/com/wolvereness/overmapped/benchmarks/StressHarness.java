@@ -0,0 +1,362 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import static com.google.common.collect.Lists.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.wolvereness.overmapped.lib.MultiProcessor;
+
+/**
+ * Races the operations of {@link MultiProcessor} tasks against each other,
+ * in the style of jcstress: each scenario runs many times, every outcome is
+ * counted, and forbidden outcomes fail the run. Arguments are optional:
+ * <pre>
+ * --iterations=20000  runs of each race
+ * --threads=4         extra processor threads
+ * --depth=2000        length of the chain of tasks waiting on each other
+ * --timeout=10        seconds before a waiting thread is considered lost
+ * </pre>
+ * Exits with status 1 if any forbidden outcome is seen.
+ */
+public final class StressHarness {
+	private static final Object VALUE = new Object();
+
+	private final int iterations;
+	private final int threads;
+	private final int depth;
+	private final long timeout;
+	private int failures;
+
+	private StressHarness(final int iterations, final int threads, final int depth, final long timeout) {
+		this.iterations = iterations;
+		this.threads = threads;
+		this.depth = depth;
+		this.timeout = timeout;
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final Map<String, String> options = ScalingHarness.parseOptions(args);
+		final StressHarness harness = new StressHarness(
+			Integer.parseInt(ScalingHarness.get(options, "iterations", "20000")),
+			Integer.parseInt(ScalingHarness.get(options, "threads", "4")),
+			Integer.parseInt(ScalingHarness.get(options, "depth", "2000")),
+			TimeUnit.SECONDS.toMillis(Integer.parseInt(ScalingHarness.get(options, "timeout", "10")))
+			);
+		harness.getRace();
+		harness.cancelRace();
+		harness.exceptionRace();
+		harness.chain();
+		if (harness.failures != 0) {
+			System.out.println(harness.failures + " forbidden outcome(s)");
+			System.exit(1);
+		}
+		System.out.println("No forbidden outcomes");
+	}
+
+	private MultiProcessor newProcessor() {
+		return MultiProcessor.newMultiProcessor(threads, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("stress-%d").build());
+	}
+
+	/**
+	 * Several threads get the same task while processor threads run it. Each
+	 * task must run once, and every getter must see its value.
+	 */
+	private void getRace() throws Exception {
+		final Multiset<String> outcomes = ConcurrentHashMultiset.create();
+		final MultiProcessor processor = newProcessor();
+		final int getters = 3;
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			final AtomicInteger runs = new AtomicInteger();
+			final Future<Object> future = processor.submit(new Callable<Object>()
+				{
+					@Override
+					public Object call() {
+						runs.incrementAndGet();
+						return VALUE;
+					}
+				});
+			final CyclicBarrier barrier = new CyclicBarrier(getters);
+			final List<Thread> racers = newArrayList();
+			for (int j = 0; j < getters; j++) {
+				racers.add(start(new Runnable()
+					{
+						@Override
+						public void run() {
+							try {
+								barrier.await();
+								outcomes.add(future.get() == VALUE ? "value" : "wrong value");
+							} catch (final Throwable ex) {
+								outcomes.add("get threw " + ex.getClass().getSimpleName());
+							}
+						}
+					}));
+			}
+			if (!join(racers)) {
+				outcomes.add("lost wakeup");
+			}
+			outcomes.add("ran " + runs.get() + " time(s)");
+			outcomes.add(future.isDone() ? "done" : "not done");
+		}
+		processor.shutdown();
+		report("get race", outcomes, start, "value", "ran 1 time(s)", "done");
+	}
+
+	/**
+	 * A thread cancels a task while another gets it. A cancelled task must
+	 * never run and must throw on get; otherwise it runs once.
+	 */
+	private void cancelRace() throws Exception {
+		final Multiset<String> outcomes = ConcurrentHashMultiset.create();
+		final MultiProcessor processor = newProcessor();
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			final AtomicInteger runs = new AtomicInteger();
+			final Future<Object> future = processor.submit(new Callable<Object>()
+				{
+					@Override
+					public Object call() {
+						runs.incrementAndGet();
+						return VALUE;
+					}
+				});
+			final CyclicBarrier barrier = new CyclicBarrier(2);
+			final boolean[] cancelled = new boolean[1];
+			final String[] got = new String[1];
+			final Thread canceller = start(new Runnable()
+				{
+					@Override
+					public void run() {
+						try {
+							barrier.await();
+							cancelled[0] = future.cancel(false);
+						} catch (final Exception ex) {
+							throw new IllegalStateException(ex);
+						}
+					}
+				});
+			final Thread getter = start(new Runnable()
+				{
+					@Override
+					public void run() {
+						try {
+							barrier.await();
+							got[0] = future.get() == VALUE ? "value" : "wrong value";
+						} catch (final CancellationException ex) {
+							got[0] = "cancelled";
+						} catch (final Throwable ex) {
+							got[0] = "get threw " + ex.getClass().getSimpleName();
+						}
+					}
+				});
+			if (!join(newArrayList(canceller, getter))) {
+				outcomes.add("lost wakeup");
+				continue;
+			}
+			outcomes.add(String.format(
+				"cancel %s, get %s, ran %d time(s), %s",
+				cancelled[0],
+				got[0],
+				runs.get(),
+				future.isDone() ? "done" : "not done"
+				));
+		}
+		processor.shutdown();
+		report("cancel race", outcomes, start,
+			"cancel true, get cancelled, ran 0 time(s), done",
+			"cancel false, get value, ran 1 time(s), done"
+			);
+	}
+
+	/**
+	 * A task throws while several threads get it. Every getter must see the
+	 * exception, and the task must then be done.
+	 */
+	private void exceptionRace() throws Exception {
+		final Multiset<String> outcomes = ConcurrentHashMultiset.create();
+		final MultiProcessor processor = newProcessor();
+		final int getters = 2;
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			final Future<Object> future = processor.submit(new Callable<Object>()
+				{
+					@Override
+					public Object call() {
+						throw new UnsupportedOperationException();
+					}
+				});
+			final CyclicBarrier barrier = new CyclicBarrier(getters);
+			final List<Thread> racers = newArrayList();
+			for (int j = 0; j < getters; j++) {
+				racers.add(start(new Runnable()
+					{
+						@Override
+						public void run() {
+							try {
+								barrier.await();
+								future.get();
+								outcomes.add("no exception");
+							} catch (final ExecutionException ex) {
+								outcomes.add(ex.getCause() instanceof UnsupportedOperationException ? "exception" : "wrong exception");
+							} catch (final Throwable ex) {
+								outcomes.add("get threw " + ex.getClass().getSimpleName());
+							}
+						}
+					}));
+			}
+			if (!join(racers)) {
+				outcomes.add("lost wakeup");
+			}
+			outcomes.add(future.isDone() ? "done" : "not done");
+		}
+		processor.shutdown();
+		report("exception race", outcomes, start, "exception", "done");
+	}
+
+	/**
+	 * Each task of a chain submits the next and gets it, so threads waiting
+	 * on a task run queued tasks in the meantime. Every waiting link keeps
+	 * its frames, so a long enough chain overflows a stack; that must reach
+	 * the caller as an exception rather than a hang.
+	 */
+	private void chain() throws Exception {
+		final Multiset<String> outcomes = ConcurrentHashMultiset.create();
+		final MultiProcessor processor = newProcessor();
+		final AtomicInteger deepest = new AtomicInteger();
+		final long start = System.nanoTime();
+		final int rounds = Math.max(1, iterations / depth);
+		for (int i = 0; i < rounds; i++) {
+			final CountDownLatch done = new CountDownLatch(1);
+			final String[] outcome = new String[1];
+			final Thread caller = start(new Runnable()
+				{
+					@Override
+					public void run() {
+						try {
+							outcome[0] = processor.submit(new Link(processor, depth, deepest)).get() == VALUE ? "completed" : "wrong value";
+						} catch (final ExecutionException ex) {
+							Throwable cause = ex;
+							while (cause.getCause() != null) {
+								cause = cause.getCause();
+							}
+							outcome[0] = "failed with " + cause.getClass().getSimpleName();
+						} catch (final Throwable ex) {
+							outcome[0] = "get threw " + ex.getClass().getSimpleName();
+						}
+						done.countDown();
+					}
+				});
+			if (!done.await(timeout, TimeUnit.MILLISECONDS)) {
+				outcomes.add("lost wakeup");
+				caller.interrupt();
+				break;
+			}
+			outcomes.add(outcome[0]);
+		}
+		processor.shutdown();
+		final String nesting = "at most " + deepest.get() + " links nested on one thread";
+		outcomes.add(nesting);
+		report("chain of " + depth, outcomes, start, "completed", "failed with StackOverflowError", nesting);
+	}
+
+	private static final class Link implements Callable<Object> {
+		private static final ThreadLocal<int[]> nesting = new ThreadLocal<int[]>()
+			{
+				@Override
+				protected int[] initialValue() {
+					return new int[1];
+				}
+			};
+		private final MultiProcessor processor;
+		private final int remaining;
+		private final AtomicInteger deepest;
+
+		Link(final MultiProcessor processor, final int remaining, final AtomicInteger deepest) {
+			this.processor = processor;
+			this.remaining = remaining;
+			this.deepest = deepest;
+		}
+
+		@Override
+		public Object call() throws Exception {
+			final int[] nesting = Link.nesting.get();
+			final int depth = ++nesting[0];
+			try {
+				int current;
+				while (depth > (current = deepest.get()) && !deepest.compareAndSet(current, depth)) {
+				}
+				if (remaining == 0)
+					return VALUE;
+				return processor.submit(new Link(processor, remaining - 1, deepest)).get();
+			} finally {
+				nesting[0]--;
+			}
+		}
+	}
+
+	private static Thread start(final Runnable runnable) {
+		final Thread thread = new Thread(runnable);
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	private boolean join(final List<Thread> threads) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + timeout;
+		for (final Thread thread : threads) {
+			thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+			if (thread.isAlive())
+				return false;
+		}
+		return true;
+	}
+
+	private void report(final String name, final Multiset<String> outcomes, final long start, final String...allowed) {
+		System.out.println(String.format(
+			"%s: %d ms",
+			name,
+			TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+			));
+		final List<String> allowedOutcomes = newArrayList(allowed);
+		for (final Multiset.Entry<String> outcome : outcomes.entrySet()) {
+			final boolean forbidden = !allowedOutcomes.contains(outcome.getElement());
+			if (forbidden) {
+				failures++;
+			}
+			System.out.println(String.format(
+				"  %-9s %10d  %s",
+				forbidden ? "FORBIDDEN" : "ok",
+				outcome.getCount(),
+				outcome.getElement()
+				));
+		}
+	}
+}
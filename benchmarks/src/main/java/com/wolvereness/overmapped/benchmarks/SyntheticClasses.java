@@ -0,0 +1,53 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.common.collect.Iterables;
+import com.wolvereness.overmapped.asm.ByteClass;
+
+/**
+ * Generates single classes, for benchmarks that do not need a whole jar.
+ */
+final class SyntheticClasses {
+	static final long SEED = 0x5EED;
+
+	private SyntheticClasses() {
+	}
+
+	/**
+	 * @param kind either "class" or "enum"
+	 * @return the entry name and class file of a class with the specified
+	 *     number of members or enum constants
+	 */
+	static Map.Entry<String, byte[]> newClassFile(final String kind, final int members) {
+		final SyntheticJar jar = new SyntheticJar(SEED).interfaces(0).members(members).bodySize(4);
+		if (kind.equals("enum")) {
+			jar.classes(0).enums(1);
+		} else {
+			jar.classes(1).enums(0);
+		}
+		return Iterables.getOnlyElement(jar.getClassFiles().entrySet());
+	}
+
+	static ByteClass newByteClass(final Map.Entry<String, byte[]> classFile) throws IOException {
+		return new ByteClass(classFile.getKey(), new ByteArrayInputStream(classFile.getValue()));
+	}
+}
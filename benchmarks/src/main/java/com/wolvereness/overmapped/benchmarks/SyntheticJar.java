@@ -0,0 +1,540 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
+import static org.objectweb.asm.Opcodes.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.lang3.Validate;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Files;
+
+/**
+ * Generates a jar of synthetic classes and maps to apply to it, for load
+ * testing. The same seed and settings always produce the same bytes.
+ * <p>
+ * Classes form trees of the specified depth and fan-out, with some methods
+ * overriding those of their parents. The root of each tree may implement an
+ * interface, or two sibling interfaces for a diamond. Interfaces form a
+ * binary tree, so siblings share a parent interface. Enums are separate from
+ * the trees. Each method body reads fields, calls methods of its class, and
+ * references other classes.
+ * <p>
+ * The maps are a single layer. Classes, members, and flags are each chosen
+ * with the specified density; only members that are not overrides are
+ * renamed or flagged, named as they will be after the classes section.
+ * Each regex moves one package.
+ */
+public final class SyntheticJar {
+	private static final String PACKAGE_PREFIX = "gen/p";
+	private static final String CLASS_POSTFIX = ".class";
+	private static final int TYPES_PER_PACKAGE = 100;
+	private static final String METHOD_DESCRIPTOR = "(I)I";
+	private static final long ENTRY_TIME = 946684800000L;
+
+	private static final class Member {
+		final String name;
+		final String descriptor;
+		final int access;
+		final boolean declares;
+
+		Member(final String name, final String descriptor, final int access, final boolean declares) {
+			this.name = name;
+			this.descriptor = descriptor;
+			this.access = access;
+			this.declares = declares;
+		}
+	}
+
+	private static final class Kind {
+		final String name;
+		final String parent;
+		final int access;
+		final List<String> interfaces = newArrayList();
+		final List<Member> fields = newArrayList();
+		final List<Member> methods = newArrayList();
+		/**
+		 * Instance methods declared or inherited, or for interfaces every
+		 * abstract method to implement.
+		 */
+		final List<String> callable = newArrayList();
+
+		Kind(final String name, final String parent, final int access) {
+			this.name = name;
+			this.parent = parent;
+			this.access = access;
+		}
+
+		boolean isInterface() {
+			return (access & ACC_INTERFACE) != 0;
+		}
+
+		boolean isEnum() {
+			return (access & ACC_ENUM) != 0;
+		}
+	}
+
+	private final long seed;
+	private int classes = 1000;
+	private int depth = 4;
+	private int fanOut = 4;
+	private int interfaces = 50;
+	private double diamonds = 0.1;
+	private int enums = 10;
+	private int members = 10;
+	private double overrides = 0.25;
+	private int bodySize = 8;
+	private double classMaps = 0.1;
+	private double memberMaps = 0.1;
+	private double flagMaps = 0.01;
+	private int regexMaps = 1;
+	private List<Kind> kinds;
+
+	public SyntheticJar(final long seed) {
+		this.seed = seed;
+	}
+
+	public SyntheticJar classes(final int classes) {
+		Validate.isTrue(classes >= 0, "Cannot have negative classes");
+		this.classes = classes;
+		return reset();
+	}
+
+	/**
+	 * @param depth the number of classes from the root of a tree to its
+	 *     deepest class, inclusive
+	 */
+	public SyntheticJar depth(final int depth) {
+		Validate.isTrue(depth >= 1, "Depth must be at least 1");
+		this.depth = depth;
+		return reset();
+	}
+
+	public SyntheticJar fanOut(final int fanOut) {
+		Validate.isTrue(fanOut >= 1, "Fan-out must be at least 1");
+		this.fanOut = fanOut;
+		return reset();
+	}
+
+	public SyntheticJar interfaces(final int interfaces) {
+		Validate.isTrue(interfaces >= 0, "Cannot have negative interfaces");
+		this.interfaces = interfaces;
+		return reset();
+	}
+
+	/**
+	 * @param diamonds the fraction of tree roots implementing two sibling
+	 *     interfaces, where the rest implement one interface half of the time
+	 */
+	public SyntheticJar diamonds(final double diamonds) {
+		this.diamonds = fraction(diamonds);
+		return reset();
+	}
+
+	public SyntheticJar enums(final int enums) {
+		Validate.isTrue(enums >= 0, "Cannot have negative enums");
+		this.enums = enums;
+		return reset();
+	}
+
+	/**
+	 * @param members the number of fields and methods declared by each
+	 *     class, or enum constants by each enum
+	 */
+	public SyntheticJar members(final int members) {
+		Validate.isTrue(members >= 0, "Cannot have negative members");
+		this.members = members;
+		return reset();
+	}
+
+	/**
+	 * @param overrides the fraction of methods in classes with a parent that
+	 *     override an inherited method
+	 */
+	public SyntheticJar overrides(final double overrides) {
+		this.overrides = fraction(overrides);
+		return reset();
+	}
+
+	/**
+	 * @param bodySize the number of field reads, calls, and class references
+	 *     in each method
+	 */
+	public SyntheticJar bodySize(final int bodySize) {
+		Validate.isTrue(bodySize >= 0, "Cannot have a negative body size");
+		this.bodySize = bodySize;
+		return reset();
+	}
+
+	public SyntheticJar classMaps(final double classMaps) {
+		this.classMaps = fraction(classMaps);
+		return this;
+	}
+
+	public SyntheticJar memberMaps(final double memberMaps) {
+		this.memberMaps = fraction(memberMaps);
+		return this;
+	}
+
+	public SyntheticJar flagMaps(final double flagMaps) {
+		this.flagMaps = fraction(flagMaps);
+		return this;
+	}
+
+	/**
+	 * @param regexMaps the number of packages to move with a regex
+	 */
+	public SyntheticJar regexMaps(final int regexMaps) {
+		Validate.isTrue(regexMaps >= 0, "Cannot have negative regex maps");
+		this.regexMaps = regexMaps;
+		return this;
+	}
+
+	private SyntheticJar reset() {
+		kinds = null;
+		return this;
+	}
+
+	private static double fraction(final double fraction) {
+		Validate.isTrue(fraction >= 0 && fraction <= 1, "Fraction must be from 0 to 1: %s", fraction);
+		return fraction;
+	}
+
+	private int getPackages() {
+		return Math.max(1, (classes + interfaces + enums) / TYPES_PER_PACKAGE);
+	}
+
+	private List<Kind> getKinds() {
+		if (kinds != null)
+			return kinds;
+
+		final Random random = new Random(seed);
+		final int packages = getPackages();
+		final List<Kind> kinds = newArrayList();
+
+		final List<Kind> interfaceKinds = newArrayList();
+		for (int i = 0; i < interfaces; i++) {
+			final Kind kind = new Kind(newName(random, packages, "Iface", i), "java/lang/Object", ACC_PUBLIC | ACC_INTERFACE | ACC_ABSTRACT);
+			if (i != 0) {
+				final Kind parent = interfaceKinds.get((i - 1) / 2);
+				kind.interfaces.add(parent.name);
+				kind.callable.addAll(parent.callable);
+			}
+			for (int j = 0, count = Math.max(1, members / 2); j < count; j++) {
+				final Member method = new Member("i" + i + '_' + j, METHOD_DESCRIPTOR, ACC_PUBLIC | ACC_ABSTRACT, true);
+				kind.methods.add(method);
+				kind.callable.add(method.name);
+			}
+			interfaceKinds.add(kind);
+			kinds.add(kind);
+		}
+
+		int treeSize = 1;
+		for (int level = 1, width = 1; level < depth && treeSize < classes; level++) {
+			width *= fanOut;
+			treeSize += width;
+		}
+		final Kind[] classKinds = new Kind[classes];
+		for (int i = 0; i < classes; i++) {
+			final int local = i % treeSize;
+			final Kind parent = local == 0 ? null : classKinds[i - local + (local - 1) / fanOut];
+			final Kind kind = new Kind(newName(random, packages, "Class", i), parent == null ? "java/lang/Object" : parent.name, ACC_PUBLIC | ACC_SUPER);
+			final Set<String> declared = newHashSet();
+
+			if (parent != null) {
+				kind.callable.addAll(parent.callable);
+			} else if (!interfaceKinds.isEmpty()) {
+				final List<Kind> implemented = newArrayList();
+				if (interfaceKinds.size() >= 3 && random.nextDouble() < diamonds) {
+					final int sibling = random.nextInt((interfaceKinds.size() - 1) / 2) * 2 + 1;
+					implemented.add(interfaceKinds.get(sibling));
+					implemented.add(interfaceKinds.get(sibling + 1));
+				} else if (random.nextBoolean()) {
+					implemented.add(interfaceKinds.get(random.nextInt(interfaceKinds.size())));
+				}
+				for (final Kind implementedKind : implemented) {
+					kind.interfaces.add(implementedKind.name);
+					for (final String name : implementedKind.callable) {
+						if (declared.add(name)) {
+							kind.methods.add(new Member(name, METHOD_DESCRIPTOR, ACC_PUBLIC, false));
+							kind.callable.add(name);
+						}
+					}
+				}
+			}
+
+			final int fields = members / 2;
+			for (int j = 0; j < fields; j++) {
+				kind.fields.add(new Member("f" + i + '_' + j, "I", ACC_PUBLIC, true));
+			}
+			for (int j = fields; j < members; j++) {
+				if (parent != null && !parent.callable.isEmpty() && random.nextDouble() < overrides) {
+					final String name = parent.callable.get(random.nextInt(parent.callable.size()));
+					if (declared.add(name)) {
+						kind.methods.add(new Member(name, METHOD_DESCRIPTOR, ACC_PUBLIC, false));
+					}
+				} else {
+					final Member method = new Member("c" + i + '_' + j, METHOD_DESCRIPTOR, ACC_PUBLIC, true);
+					declared.add(method.name);
+					kind.methods.add(method);
+					kind.callable.add(method.name);
+				}
+			}
+			classKinds[i] = kind;
+			kinds.add(kind);
+		}
+
+		for (int i = 0; i < enums; i++) {
+			final Kind kind = new Kind(newName(random, packages, "Enum", i), "java/lang/Enum", ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_ENUM);
+			for (int j = 0, count = Math.max(1, members); j < count; j++) {
+				kind.fields.add(new Member("CONSTANT_" + j, 'L' + kind.name + ';', ACC_PUBLIC | ACC_STATIC | ACC_FINAL | ACC_ENUM, true));
+			}
+			kinds.add(kind);
+		}
+
+		return this.kinds = kinds;
+	}
+
+	private static String newName(final Random random, final int packages, final String kind, final int index) {
+		return PACKAGE_PREFIX + random.nextInt(packages) + '/' + kind + index;
+	}
+
+	/**
+	 * @return the class files by entry name, in the order written to the jar
+	 */
+	public Map<String, byte[]> getClassFiles() {
+		final List<Kind> kinds = getKinds();
+		final ImmutableMap.Builder<String, byte[]> classFiles = ImmutableMap.builder();
+		for (int i = 0; i < kinds.size(); i++) {
+			final Kind kind = kinds.get(i);
+			classFiles.put(kind.name + CLASS_POSTFIX, write(kind, kinds, new Random(seed + i)));
+		}
+		return classFiles.build();
+	}
+
+	private byte[] write(final Kind kind, final List<Kind> kinds, final Random random) {
+		final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(V1_6, kind.access, kind.name, null, kind.parent, kind.interfaces.toArray(new String[kind.interfaces.size()]));
+		for (final Member field : kind.fields) {
+			writer.visitField(field.access, field.name, field.descriptor, null, null).visitEnd();
+		}
+
+		if (kind.isInterface()) {
+			for (final Member method : kind.methods) {
+				writer.visitMethod(method.access, method.name, method.descriptor, null, null).visitEnd();
+			}
+		} else if (kind.isEnum()) {
+			writeEnumMethods(writer, kind);
+		} else {
+			MethodVisitor method = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+			method.visitCode();
+			method.visitVarInsn(ALOAD, 0);
+			method.visitMethodInsn(INVOKESPECIAL, kind.parent, "<init>", "()V");
+			method.visitInsn(RETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+
+			for (final Member member : kind.methods) {
+				method = writer.visitMethod(member.access, member.name, member.descriptor, null, null);
+				method.visitCode();
+				method.visitVarInsn(ILOAD, 1);
+				for (int i = 0; i < bodySize; i++) {
+					final int choice = random.nextInt(3);
+					if (choice == 0 && !kind.fields.isEmpty()) {
+						method.visitVarInsn(ALOAD, 0);
+						method.visitFieldInsn(GETFIELD, kind.name, kind.fields.get(random.nextInt(kind.fields.size())).name, "I");
+						method.visitInsn(IADD);
+					} else if (choice != 2 && !kind.callable.isEmpty()) {
+						method.visitVarInsn(ALOAD, 0);
+						method.visitInsn(SWAP);
+						method.visitMethodInsn(INVOKEVIRTUAL, kind.name, kind.callable.get(random.nextInt(kind.callable.size())), METHOD_DESCRIPTOR);
+					} else {
+						method.visitLdcInsn(Type.getObjectType(kinds.get(random.nextInt(kinds.size())).name));
+						method.visitInsn(POP);
+					}
+				}
+				method.visitInsn(IRETURN);
+				method.visitMaxs(0, 0);
+				method.visitEnd();
+			}
+		}
+
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	private static void writeEnumMethods(final ClassWriter writer, final Kind kind) {
+		MethodVisitor method = writer.visitMethod(ACC_PRIVATE, "<init>", "(Ljava/lang/String;I)V", null, null);
+		method.visitCode();
+		method.visitVarInsn(ALOAD, 0);
+		method.visitVarInsn(ALOAD, 1);
+		method.visitVarInsn(ILOAD, 2);
+		method.visitMethodInsn(INVOKESPECIAL, "java/lang/Enum", "<init>", "(Ljava/lang/String;I)V");
+		method.visitInsn(RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+
+		method = writer.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+		method.visitCode();
+		for (int i = 0; i < kind.fields.size(); i++) {
+			final Member constant = kind.fields.get(i);
+			method.visitTypeInsn(NEW, kind.name);
+			method.visitInsn(DUP);
+			method.visitLdcInsn(constant.name);
+			method.visitLdcInsn(i);
+			method.visitMethodInsn(INVOKESPECIAL, kind.name, "<init>", "(Ljava/lang/String;I)V");
+			method.visitFieldInsn(PUTSTATIC, kind.name, constant.name, constant.descriptor);
+		}
+		method.visitInsn(RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	/**
+	 * @return the maps, structured as loaded from yaml
+	 */
+	public List<Map<String, Object>> getMaps() {
+		final Random random = new Random(~seed);
+		final List<Kind> kinds = getKinds();
+
+		final Map<String, String> classMap = newLinkedHashMap();
+		final Map<String, String> current = newHashMap();
+		for (final Kind kind : kinds) {
+			String name = kind.name;
+			if (random.nextDouble() < classMaps) {
+				final int split = name.lastIndexOf('/') + 1;
+				classMap.put(name, name = name.substring(0, split) + "Mapped" + name.substring(split));
+			}
+			current.put(kind.name, name);
+		}
+
+		final Map<String, Map<String, String>> memberMap = newLinkedHashMap();
+		final Map<String, Integer> flagMap = newLinkedHashMap();
+		for (final Kind kind : kinds) {
+			final String className = current.get(kind.name);
+			final Map<String, String> classMembers = newLinkedHashMap();
+			for (final Member member : Iterables.concat(kind.fields, kind.methods)) {
+				if (!member.declares) {
+					continue;
+				}
+				final String descriptor = kind.isEnum() ? 'L' + className + ';' : member.descriptor;
+				String name = member.name;
+				if (random.nextDouble() < memberMaps) {
+					classMembers.put(name + ' ' + descriptor, name = name + "_mapped");
+				}
+				if (random.nextDouble() < flagMaps) {
+					flagMap.put(className + ' ' + name + ' ' + descriptor, member.access | ACC_SYNTHETIC);
+				}
+			}
+			if (!classMembers.isEmpty()) {
+				memberMap.put(className, classMembers);
+			}
+		}
+
+		final Map<String, String> regexMap = newLinkedHashMap();
+		for (int i = 0, count = Math.min(regexMaps, getPackages()); i < count; i++) {
+			regexMap.put('^' + PACKAGE_PREFIX + i + "/(.*)$", "gen/r" + i + "/$1");
+		}
+
+		final Map<String, Object> layer = newLinkedHashMap();
+		if (!classMap.isEmpty()) {
+			layer.put("classes", classMap);
+		}
+		if (!memberMap.isEmpty()) {
+			layer.put("members", memberMap);
+		}
+		if (!flagMap.isEmpty()) {
+			layer.put("flags", flagMap);
+		}
+		if (!regexMap.isEmpty()) {
+			layer.put("regex", regexMap);
+		}
+		return ImmutableList.of(layer);
+	}
+
+	/**
+	 * Writes the jar, without closing the stream.
+	 */
+	public void writeJar(final OutputStream out) throws IOException {
+		final JarOutputStream jar = new JarOutputStream(out);
+		final Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		putNextEntry(jar, JarFile.MANIFEST_NAME);
+		manifest.write(jar);
+		for (final Map.Entry<String, byte[]> classFile : getClassFiles().entrySet()) {
+			putNextEntry(jar, classFile.getKey());
+			jar.write(classFile.getValue());
+		}
+		jar.finish();
+	}
+
+	private static void putNextEntry(final JarOutputStream jar, final String name) throws IOException {
+		final ZipEntry entry = new ZipEntry(name);
+		entry.setTime(ENTRY_TIME);
+		jar.putNextEntry(entry);
+	}
+
+	public void writeJar(final File file) throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		try {
+			writeJar(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	public void writeMaps(final Writer writer) throws IOException {
+		final DumperOptions options = new DumperOptions();
+		options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+		new Yaml(options).dump(getMaps(), writer);
+	}
+
+	public void writeMaps(final File file) throws IOException {
+		final Writer writer = Files.newWriter(file, Charset.forName("UTF8"));
+		try {
+			writeMaps(writer);
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.benchmarks;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.wolvereness.overmapped.lib.WellOrdered;
+import com.wolvereness.overmapped.lib.WellOrdered.WellOrderedException;
+
+/**
+ * Measures ordering a shuffled class hierarchy so that every class follows
+ * its parent and interfaces, as done before applying any maps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WellOrderedBenchmark {
+	@Param({"1000", "100000"})
+	public int classes;
+
+	@Param({"2", "16"})
+	public int fanOut;
+
+	@Param({"0", "2"})
+	public int interfaces;
+
+	private List<String> tokens;
+	private final Map<String, List<String>> preceding = newHashMap();
+	private final WellOrdered.Informer<String> informer = new WellOrdered.AbstractInformer<String>()
+		{
+			@Override
+			public void addPrecedingTo(final String token, final Collection<? super String> of) {
+				of.addAll(preceding.get(token));
+			}
+		};
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(classes * 31 + fanOut);
+		tokens = newArrayList();
+		for (int i = 0; i < classes; i++) {
+			final String name = "bench/Class" + i;
+			final List<String> of = newArrayList();
+			if (i != 0) {
+				of.add("bench/Class" + (i - 1) / fanOut);
+				for (int j = 0; j < interfaces; j++) {
+					of.add("bench/Class" + random.nextInt(i));
+				}
+			}
+			preceding.put(name, of);
+			tokens.add(name);
+		}
+		Collections.shuffle(tokens, random);
+	}
+
+	@Benchmark
+	public List<String> process() throws WellOrderedException {
+		return WellOrdered.process(new ArrayList<String>(tokens.size()), tokens, informer);
+	}
+}
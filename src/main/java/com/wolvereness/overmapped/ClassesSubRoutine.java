@@ -16,6 +16,7 @@
  */
 package com.wolvereness.overmapped;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,8 +26,11 @@ import org.objectweb.asm.commons.Remapper;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.Multimap;
 import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.FlagTable;
+import com.wolvereness.overmapped.asm.MemberRules;
 import com.wolvereness.overmapped.asm.Signature;
 import com.wolvereness.overmapped.asm.Signature.MutableSignature;
+import com.wolvereness.overmapped.lib.MultiProcessor;
 
 class ClassesSubRoutine extends SubRoutine {
 
@@ -37,9 +41,11 @@ class ClassesSubRoutine extends SubRoutine {
 	@Override
 	public void invoke(
 	                   final OverMapped instance,
+	                   final MultiProcessor executor,
 	                   final Map<String, ByteClass> classes,
 	                   final Multimap<String, String> depends,
 	                   final Multimap<String, String> rdepends,
+	                   final Map<String, Integer> shards,
 	                   final BiMap<String, String> nameMaps,
 	                   final BiMap<String, String> inverseNameMaps,
 	                   final BiMap<Signature, Signature> signatureMaps,
@@ -48,6 +54,9 @@ class ClassesSubRoutine extends SubRoutine {
 	                   final MutableSignature signature,
 	                   final Set<String> searchCache,
 	                   final Map<Signature, Integer> flags,
+	                   final List<MemberRules.Rule> memberRules,
+	                   final List<FlagTable.Rule> flagRules,
+	                   final List<String> conflicts,
 	                   final Map<?,?> map
 	                   ) throws
 	                   ClassCastException,
@@ -61,18 +70,21 @@ class ClassesSubRoutine extends SubRoutine {
 		for (final Map.Entry<?, ?> classMap : ((Map<?,?>) classMaps).entrySet()) {
 			final String originalName = ((String) classMap.getKey()).toString();
 			final String newName = ((String) classMap.getValue()).toString();
-			if (nameMaps.containsValue(newName))
-				throw new MojoFailureException(String.format(
+			if (nameMaps.containsValue(newName)) {
+				conflicts.add(String.format(
 					"Cannot map `%s' to a duplicate entry `%s' mapped from `%s'",
 					originalName,
 					newName,
 					inverseNameMaps.get(newName)
 					));
+				continue;
+			}
 			final String trueOriginal = inverseNameMaps.get(originalName);
 			if (trueOriginal == null) {
-				instance.missingAction.actClass(instance.getLog(), originalName, newName, inverseNameMaps);
+				instance.missingAction.actClass(instance.report, originalName, newName, instance.suggestions);
 			} else {
 				nameMaps.put(trueOriginal, newName);
+				instance.suggestions.renamed(originalName, newName);
 			}
 		}
 	}
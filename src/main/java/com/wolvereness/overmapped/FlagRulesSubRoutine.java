@@ -0,0 +1,110 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.objectweb.asm.commons.Remapper;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.Multimap;
+import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.FlagTable;
+import com.wolvereness.overmapped.asm.MemberRules;
+import com.wolvereness.overmapped.asm.Signature;
+import com.wolvereness.overmapped.asm.Signature.MutableSignature;
+import com.wolvereness.overmapped.lib.MultiProcessor;
+
+class FlagRulesSubRoutine extends SubRoutine {
+
+	FlagRulesSubRoutine() {
+		super("flagRules");
+	}
+
+	@Override
+	public void invoke(
+	                   final OverMapped instance,
+	                   final MultiProcessor executor,
+	                   final Map<String, ByteClass> classes,
+	                   final Multimap<String, String> depends,
+	                   final Multimap<String, String> rdepends,
+	                   final Map<String, Integer> shards,
+	                   final BiMap<String, String> nameMaps,
+	                   final BiMap<String, String> inverseNameMaps,
+	                   final BiMap<Signature, Signature> signatureMaps,
+	                   final BiMap<Signature, Signature> inverseSignatureMaps,
+	                   final Remapper inverseMapper,
+	                   final MutableSignature signature,
+	                   final Set<String> searchCache,
+	                   final Map<Signature, Integer> flags,
+	                   final List<MemberRules.Rule> memberRules,
+	                   final List<FlagTable.Rule> flagRules,
+	                   final List<String> conflicts,
+	                   final Map<?,?> map
+	                   ) throws
+	                   ClassCastException,
+	                   NullPointerException,
+	                   MojoFailureException
+	                   {
+		final Object ruleMaps = map.get(tag);
+		if (!(ruleMaps instanceof Map))
+			return;
+
+		for (final Map.Entry<?, ?> ruleMap : ((Map<?,?>) ruleMaps).entrySet()) {
+			final String qualifiedName = asType(
+				ruleMap.getKey(),
+				"`%4$s' points from a %2$s `%1$s', expected a %5$s, in `%3$s'",
+				false,
+				ruleMaps,
+				ruleMap,
+				String.class
+				);
+			final Map<?, ?> operations = asType(
+				ruleMap.getValue(),
+				"`%4$s' points to a %2$s `%1$s', expected a %5$s, in `%3$s'",
+				false,
+				ruleMaps,
+				ruleMap,
+				Map.class
+				);
+			final Integer set = getTypeFrom(operations, "set", true, Integer.class);
+			final Integer add = getTypeFrom(operations, "add", true, Integer.class);
+			final Integer remove = getTypeFrom(operations, "remove", true, Integer.class);
+
+			if (set == null && add == null && remove == null)
+				throw new MojoFailureException(String.format(
+					"Malformed rule %s; expected at least one of `set', `add', or `remove' in `%s'",
+					qualifiedName,
+					operations
+					));
+
+			final Pattern[] patterns = compileRule(qualifiedName, ruleMap, ruleMaps);
+			flagRules.add(new FlagTable.Rule(
+				patterns[0],
+				patterns[1],
+				patterns[2],
+				set,
+				add != null ? add : 0,
+				remove != null ? remove : 0
+				));
+		}
+	}
+}
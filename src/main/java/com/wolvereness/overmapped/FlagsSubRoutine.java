@@ -16,6 +16,7 @@
  */
 package com.wolvereness.overmapped;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,8 +26,11 @@ import org.objectweb.asm.commons.Remapper;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.Multimap;
 import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.FlagTable;
+import com.wolvereness.overmapped.asm.MemberRules;
 import com.wolvereness.overmapped.asm.Signature;
 import com.wolvereness.overmapped.asm.Signature.MutableSignature;
+import com.wolvereness.overmapped.lib.MultiProcessor;
 
 class FlagsSubRoutine extends SubRoutine {
 
@@ -37,9 +41,11 @@ class FlagsSubRoutine extends SubRoutine {
 	@Override
 	public void invoke(
 	                   final OverMapped instance,
+	                   final MultiProcessor executor,
 	                   final Map<String, ByteClass> classes,
 	                   final Multimap<String, String> depends,
 	                   final Multimap<String, String> rdepends,
+	                   final Map<String, Integer> shards,
 	                   final BiMap<String, String> nameMaps,
 	                   final BiMap<String, String> inverseNameMaps,
 	                   final BiMap<Signature, Signature> signatureMaps,
@@ -48,6 +54,9 @@ class FlagsSubRoutine extends SubRoutine {
 	                   final MutableSignature signature,
 	                   final Set<String> searchCache,
 	                   final Map<Signature, Integer> flags,
+	                   final List<MemberRules.Rule> memberRules,
+	                   final List<FlagTable.Rule> flagRules,
+	                   final List<String> conflicts,
 	                   final Map<?,?> map
 	                   ) throws
 	                   ClassCastException,
@@ -92,14 +101,14 @@ class FlagsSubRoutine extends SubRoutine {
 
 			final String unmappedClass = inverseNameMaps.get(clazz);
 			if (unmappedClass == null) {
-				instance.missingAction.actFlag(instance.getLog(), flagMap, signatureMaps);
+				instance.missingAction.actFlag(instance.report, clazz, flagMap, instance.suggestions.forClass(clazz));
 				continue;
 			}
 			final String unmappedDescription = inverseMapper.mapDesc(description);
 
 			final Signature unmappedSignature = inverseSignatureMaps.get(signature.update(unmappedClass, name, unmappedDescription));
 			if (unmappedSignature == null) {
-				instance.missingAction.actFlag(instance.getLog(), flagMap, signatureMaps);
+				instance.missingAction.actFlag(instance.report, clazz, flagMap, instance.suggestions.forMember(unmappedClass, name, unmappedDescription));
 				continue;
 			}
 
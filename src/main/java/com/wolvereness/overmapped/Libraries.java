@@ -0,0 +1,172 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.LibraryClass;
+import com.wolvereness.overmapped.asm.LibraryIndex;
+import com.wolvereness.overmapped.asm.Signature;
+
+/**
+ * The classes of the libraries, being the context the input is compiled
+ * against. They are never mapped or written; they are only searched for
+ * the methods that input classes inherit. A class of the input takes
+ * precedence over a library class of the same name, and a class of an
+ * earlier library over that of a later one.
+ */
+final class Libraries {
+	private final Map<String, LibraryClass> classes = newHashMap();
+	private final int artifacts;
+	private final int indexed;
+	/**
+	 * The overridable library methods of each class, by name and
+	 * descriptor, declared by or inherited from library classes.
+	 */
+	private final Map<String, Map<String, Signature>> inherited = newHashMap();
+
+	Libraries(final List<LibraryIndex> indexes) {
+		int indexed = 0;
+		for (final LibraryIndex index : indexes) {
+			if (index.isIndexed()) {
+				indexed++;
+			}
+			for (final Map.Entry<String, LibraryClass> entry : index.getClasses().entrySet()) {
+				if (!classes.containsKey(entry.getKey())) {
+					classes.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		this.artifacts = indexes.size();
+		this.indexed = indexed;
+	}
+
+	int size() {
+		return classes.size();
+	}
+
+	int getArtifacts() {
+		return artifacts;
+	}
+
+	/**
+	 * @return the number of artifacts read from their index
+	 */
+	int getIndexed() {
+		return indexed;
+	}
+
+	/**
+	 * Adds the methods that input classes inherit from library classes to
+	 * the signatures, unmapped. A method that shares an override group with
+	 * a library method, such as one inherited by a subclass implementing a
+	 * library interface, is a library method as well.
+	 *
+	 * @return every signature of an input class that is a library method,
+	 *     with the library class declaring it
+	 */
+	Map<Signature, String> prepareSignatures(
+	                                         final Map<String, ByteClass> byteClasses,
+	                                         final Map<Signature, Signature> signatureMaps,
+	                                         final OverrideGroups overrides
+	                                         ) {
+		final Map<Signature, String> libraryMembers = newHashMap();
+		if (classes.isEmpty())
+			return libraryMembers;
+
+		for (final ByteClass clazz : byteClasses.values()) {
+			final String name = clazz.getToken();
+			for (final Signature method : getInherited(byteClasses, name).values()) {
+				final Signature signature = method.forClassName(name);
+				if (!signatureMaps.containsKey(signature)) {
+					signatureMaps.put(signature, signature);
+				}
+				libraryMembers.put(signature, method.getClassName());
+			}
+		}
+		for (final Map.Entry<Signature, String> entry : newArrayList(libraryMembers.entrySet())) {
+			for (final Signature member : overrides.getGroup(entry.getKey())) {
+				if (!libraryMembers.containsKey(member)) {
+					libraryMembers.put(member, entry.getValue());
+				}
+			}
+		}
+		return libraryMembers;
+	}
+
+	/**
+	 * The parent is searched before the interfaces, such that a method is
+	 * attributed to the class it is inherited from. An input class with a
+	 * single supertype that has any methods shares its map.
+	 */
+	private Map<String, Signature> getInherited(final Map<String, ByteClass> byteClasses, final String name) {
+		Map<String, Signature> methods = inherited.get(name);
+		if (methods != null)
+			return methods;
+		// Guards against circular hierarchies
+		inherited.put(name, Collections.<String, Signature>emptyMap());
+
+		final ByteClass byteClass = byteClasses.get(name);
+		final LibraryClass libraryClass = byteClass == null ? classes.get(name) : null;
+		if (byteClass == null && libraryClass == null)
+			return Collections.emptyMap();
+
+		final List<Map<String, Signature>> supertypes = newArrayList();
+		final String parent = byteClass != null ? byteClass.getParent() : libraryClass.getParent();
+		if (parent != null) {
+			addIfNotEmpty(supertypes, getInherited(byteClasses, parent));
+		}
+		for (final String interfaceName : byteClass != null ? byteClass.getInterfaces() : libraryClass.getInterfaces()) {
+			addIfNotEmpty(supertypes, getInherited(byteClasses, interfaceName));
+		}
+
+		if (libraryClass == null && supertypes.size() <= 1) {
+			methods = supertypes.isEmpty() ? Collections.<String, Signature>emptyMap() : supertypes.get(0);
+		} else {
+			methods = newLinkedHashMap();
+			if (libraryClass != null) {
+				for (final Signature method : libraryClass.getMethods()) {
+					methods.put(method.getElementName() + method.getDescriptor(), method);
+				}
+			}
+			for (final Map<String, Signature> supertype : supertypes) {
+				for (final Map.Entry<String, Signature> entry : supertype.entrySet()) {
+					if (!methods.containsKey(entry.getKey())) {
+						methods.put(entry.getKey(), entry.getValue());
+					}
+				}
+			}
+			if (methods.isEmpty()) {
+				methods = Collections.emptyMap();
+			}
+		}
+		inherited.put(name, methods);
+		return methods;
+	}
+
+	private static void addIfNotEmpty(final List<Map<String, Signature>> supertypes, final Map<String, Signature> methods) {
+		if (!methods.isEmpty()) {
+			supertypes.add(methods);
+		}
+	}
+}
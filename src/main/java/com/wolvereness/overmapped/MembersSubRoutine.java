@@ -17,6 +17,8 @@
 package com.wolvereness.overmapped;
 
 import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -24,17 +26,25 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
 import org.objectweb.asm.commons.Remapper;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.Futures;
 import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.FlagTable;
+import com.wolvereness.overmapped.asm.MemberRules;
 import com.wolvereness.overmapped.asm.Signature;
 import com.wolvereness.overmapped.asm.Signature.MutableSignature;
+import com.wolvereness.overmapped.lib.MultiProcessor;
 
 class MembersSubRoutine extends SubRoutine {
 	static class Store {
@@ -43,21 +53,56 @@ class MembersSubRoutine extends SubRoutine {
 		String description;
 		String originalDescription;
 		final Set<String> searchCache;
-		final Set<String> parents;
-		Map<String, Signature> classFieldsCache;
+		final List<Rename> renames = newArrayList();
+		final Set<Signature> targets = newLinkedHashSet();
+		Log log;
+		MissingReport report;
+		List<String> conflicts;
+		final Map<String, Map<String, Signature>> fieldIndexes = newHashMap();
 		final OverMapped instance;
 
 		Store(
 		      final Set<String> searchCache,
-		      final Set<String> parents,
 		      final OverMapped instance
 		      ) {
 			this.searchCache = searchCache;
-			this.parents = parents;
 			this.instance = instance;
 		}
 	}
 
+	static class Unit {
+		final Map.Entry<?, ?> memberMap;
+		final RecordingLog log;
+		final MissingReport report;
+		final List<String> conflicts = newArrayList();
+		Integer shard;
+		Throwable failure;
+
+		Unit(final Map.Entry<?, ?> memberMap, final RecordingLog log, final MissingReport report) {
+			this.memberMap = memberMap;
+			this.log = log;
+			this.report = report.fork(log);
+		}
+	}
+
+	static class Rename {
+		final String newName;
+		final String oldName;
+		final String description;
+		final String originalDescription;
+
+		Rename(final Store store) {
+			this.newName = store.newName;
+			this.oldName = store.oldName;
+			this.description = store.description;
+			this.originalDescription = store.originalDescription;
+		}
+
+		boolean isConstructor() {
+			return oldName.startsWith("<");
+		}
+	}
+
 	MembersSubRoutine() {
 		super("members");
 	}
@@ -65,9 +110,11 @@ class MembersSubRoutine extends SubRoutine {
 	@Override
 	public void invoke(
 	                   final OverMapped instance,
+	                   final MultiProcessor executor,
 	                   final Map<String, ByteClass> classes,
 	                   final Multimap<String, String> depends,
 	                   final Multimap<String, String> rdepends,
+	                   final Map<String, Integer> shards,
 	                   final BiMap<String, String> nameMaps,
 	                   final BiMap<String, String> inverseNameMaps,
 	                   final BiMap<Signature, Signature> signatureMaps,
@@ -76,6 +123,9 @@ class MembersSubRoutine extends SubRoutine {
 	                   final MutableSignature mutableSignature,
 	                   final Set<String> searchCache,
 	                   final Map<Signature, Integer> flags,
+	                   final List<MemberRules.Rule> memberRules,
+	                   final List<FlagTable.Rule> flagRules,
+	                   final List<String> conflicts,
 	                   final Map<?,?> map
 	                   ) throws
 	                   ClassCastException,
@@ -86,137 +136,282 @@ class MembersSubRoutine extends SubRoutine {
 		if (!(memberMaps instanceof Map))
 			return;
 
-		final Store store = new Store(
-			searchCache,
-			instance.isFindParents()
-				? new HashSet<String>()
-				: null,
-			instance
-			);
-
+		// Member maps are grouped by the shards of their classes; groups never share a shard, so they may be processed concurrently
+		final List<Unit> units = newArrayList();
+		final Map<Integer, Integer> unions = newHashMap();
 		for (final Map.Entry<?, ?> memberMap : ((Map<?,?>) memberMaps).entrySet()) {
-			final Map<?,?> maps = asType(
-				memberMap.getValue(),
-				"`%4$s' points to a %2$s `%1$s', expected a %5$s, in `%3$s'",
-				false,
-				memberMaps,
-				memberMap,
-				Map.class
-				);
-
-			if (memberMap.getKey() instanceof Collection<?> && ((Collection<?>) memberMap.getKey()).size() > 1) {
-				final Iterable<String> classNames; {
-					final ImmutableCollection.Builder<String> containingClassNames = ImmutableList.builder();
-					for (final Object clazz : (Collection<?>) memberMap.getKey()) {
-						final String unresolvedClassName = asType(
-							clazz,
-							"`%4$s' contains a %2$s `%1$s', expected a %5$s, from `%3$s'",
-							false,
-							memberMaps,
-							memberMap.getKey(),
-							String.class
-							);
-						final String className = inverseNameMaps.get(unresolvedClassName);
-						if (className == null) {
-							instance.missingAction.actMemberClass(instance.getLog(), unresolvedClassName, memberMap.getKey(), inverseNameMaps);
-							continue;
-						}
-						containingClassNames.add(className);
-					}
-					classNames = containingClassNames.build();
+			final Unit unit = new Unit(memberMap, new RecordingLog(instance.getLog()), instance.report);
+			units.add(unit);
+			final Iterable<?> keys = memberMap.getKey() instanceof Collection<?>
+				? (Collection<?>) memberMap.getKey()
+				: ImmutableList.of(memberMap.getKey());
+			for (final Object key : keys) {
+				final String className = inverseNameMaps.get(key);
+				final Integer shard = className == null ? null : shards.get(className);
+				if (shard == null) {
+					continue;
+				}
+				if (unit.shard == null) {
+					unit.shard = shard;
+				} else {
+					union(unions, unit.shard, shard);
 				}
+			}
+		}
 
-				for (final Map.Entry<?, ?> entry : maps.entrySet()) {
-					parseMapping(
-						store,
-						inverseMapper,
-						mutableSignature,
-						maps,
-						entry,
-						false
-						);
-					final String newName = store.newName, oldName = store.oldName, description = store.description, originalDescription = store.originalDescription;
-
-					if (!mutableSignature.update("", "", description).isMethod())
-						throw new MojoFailureException(String.format(
-							"Malformed mapping %s for %s; can only map methods.",
-							entry,
-							memberMap
-							));
-
-					for (final String className : classNames) {
-						updateMember(store, signatureMaps, inverseSignatureMaps, mutableSignature, oldName, newName, description, className, nameMaps, originalDescription, nameMaps.get(className));
-
-						if (mutableSignature.isMethod() && !mutableSignature.isConstructor()) {
-							final Set<String> parents = store.parents;
-							if (parents != null) {
-								parents.addAll(depends.get(className));
-							}
-							for (final String inherited : rdepends.get(className)) {
-								if (!updateMember(store, signatureMaps, inverseSignatureMaps, mutableSignature, oldName, newName, description, inherited, nameMaps, originalDescription, nameMaps.get(inherited)))
-									continue;
+		final Map<Integer, List<Unit>> groups = newLinkedHashMap();
+		for (final Unit unit : units) {
+			final Integer group = unit.shard == null ? null : find(unions, unit.shard);
+			List<Unit> groupUnits = groups.get(group);
+			if (groupUnits == null) {
+				groups.put(group, groupUnits = newArrayList());
+			}
+			groupUnits.add(unit);
+		}
 
-								if (parents != null) {
-									parents.addAll(depends.get(inherited));
-								}
+		if (groups.size() == 1) {
+			processUnits(
+				new Store(
+					searchCache,
+					instance
+					),
+				units,
+				classes,
+				rdepends,
+				nameMaps,
+				inverseNameMaps,
+				signatureMaps,
+				inverseSignatureMaps,
+				inverseMapper,
+				mutableSignature,
+				memberMaps
+				);
+		} else {
+			final List<Future<?>> futures = newArrayList();
+			for (final List<Unit> groupUnits : groups.values()) {
+				futures.add(executor.submit(
+					"members",
+					new Callable<Object>()
+						{
+							@Override
+							public Object call() throws Exception {
+								processUnits(
+									new Store(
+										new HashSet<String>(),
+										instance
+										),
+									groupUnits,
+									classes,
+									rdepends,
+									nameMaps,
+									inverseNameMaps,
+									signatureMaps,
+									inverseSignatureMaps,
+									inverseMapper,
+									Signature.newMutableSignature("", "", ""),
+									memberMaps
+									);
+								return null;
 							}
 						}
-					}
-					performParentChecks(store, nameMaps, inverseSignatureMaps, mutableSignature, classNames, newName, oldName, description, originalDescription);
-					store.searchCache.clear();
-				}
+					));
+			}
+			for (final Future<?> future : futures) {
+				Futures.getUnchecked(future);
+			}
+		}
 
-				continue;
+		// Output, missing mappings, conflicts, and failures, are reported in order of appearance, as if processed serially
+		for (final Unit unit : units) {
+			unit.log.replay();
+			instance.report.addAll(unit.report);
+			conflicts.addAll(unit.conflicts);
+			final Throwable failure = unit.failure;
+			if (failure != null) {
+				Throwables.propagateIfPossible(failure, MojoFailureException.class);
+				throw new IllegalStateException(failure);
 			}
+		}
+	}
 
-			if (memberMap.getKey() instanceof Collection<?> && ((Collection<?>) memberMap.getKey()).size() < 1)
-				throw new MojoFailureException(String.format(
-					"Malformed mapping %s -> %s",
-					memberMap.getKey(),
-					maps
-					));
+	private static Integer find(final Map<Integer, Integer> unions, Integer shard) {
+		Integer parent;
+		while ((parent = unions.get(shard)) != null) {
+			shard = parent;
+		}
+		return shard;
+	}
 
-			final String unresolvedClassName = asType(
-				memberMap.getKey() instanceof Collection<?>
-					? ((Collection<?>) memberMap.getKey()).iterator().next()
-					: memberMap.getKey(),
-				"`%4$s' points from a %2$s `%1$s', expected a %5$s, in `%3$s'",
-				false,
-				memberMaps,
-				memberMap,
-				String.class
-				);
-			final String className = inverseNameMaps.get(unresolvedClassName);
-			if (className == null) {
-				instance.missingAction.actMemberClass(instance.getLog(), unresolvedClassName, memberMap.getKey(), inverseNameMaps);
-				continue;
-			}
+	private static void union(final Map<Integer, Integer> unions, final Integer shard1, final Integer shard2) {
+		final Integer root1 = find(unions, shard1);
+		final Integer root2 = find(unions, shard2);
+		if (!root1.equals(root2)) {
+			unions.put(root2, root1);
+		}
+	}
 
-			for (final Map.Entry<?, ?> entry : maps.entrySet()) {
-				processSingleClassMappings(
+	/**
+	 * Processes each unit in order, stopping at the first failure.
+	 */
+	private static void processUnits(
+	                                 final Store store,
+	                                 final Iterable<Unit> units,
+	                                 final Map<String, ByteClass> classes,
+	                                 final Multimap<String, String> rdepends,
+	                                 final BiMap<String, String> nameMaps,
+	                                 final BiMap<String, String> inverseNameMaps,
+	                                 final BiMap<Signature, Signature> signatureMaps,
+	                                 final BiMap<Signature, Signature> inverseSignatureMaps,
+	                                 final Remapper inverseMapper,
+	                                 final MutableSignature mutableSignature,
+	                                 final Object memberMaps
+	                                 ) {
+		for (final Unit unit : units) {
+			store.log = unit.log;
+			store.conflicts = unit.conflicts;
+			store.report = unit.report;
+			try {
+				processMemberMap(
 					store,
 					classes,
-					depends,
 					rdepends,
 					nameMaps,
+					inverseNameMaps,
 					signatureMaps,
 					inverseSignatureMaps,
 					inverseMapper,
 					mutableSignature,
+					memberMaps,
+					unit.memberMap
+					);
+			} catch (final Throwable ex) {
+				unit.failure = ex;
+				return;
+			}
+		}
+	}
+
+	private static void processMemberMap(
+	                                     final Store store,
+	                                     final Map<String, ByteClass> classes,
+	                                     final Multimap<String, String> rdepends,
+	                                     final BiMap<String, String> nameMaps,
+	                                     final BiMap<String, String> inverseNameMaps,
+	                                     final BiMap<Signature, Signature> signatureMaps,
+	                                     final BiMap<Signature, Signature> inverseSignatureMaps,
+	                                     final Remapper inverseMapper,
+	                                     final MutableSignature mutableSignature,
+	                                     final Object memberMaps,
+	                                     final Map.Entry<?, ?> memberMap
+	                                     ) throws
+	                                     ClassCastException,
+	                                     NullPointerException,
+	                                     MojoFailureException
+	                                     {
+		final Map<?,?> maps = asType(
+			memberMap.getValue(),
+			"`%4$s' points to a %2$s `%1$s', expected a %5$s, in `%3$s'",
+			false,
+			memberMaps,
+			memberMap,
+			Map.class
+			);
+
+		if (memberMap.getKey() instanceof Collection<?> && ((Collection<?>) memberMap.getKey()).size() > 1) {
+			final Iterable<String> classNames; {
+				final ImmutableCollection.Builder<String> containingClassNames = ImmutableList.builder();
+				for (final Object clazz : (Collection<?>) memberMap.getKey()) {
+					final String unresolvedClassName = asType(
+						clazz,
+						"`%4$s' contains a %2$s `%1$s', expected a %5$s, from `%3$s'",
+						false,
+						memberMaps,
+						memberMap.getKey(),
+						String.class
+						);
+					final String className = inverseNameMaps.get(unresolvedClassName);
+					if (className == null) {
+						store.instance.missingAction.actMemberClass(store.report, unresolvedClassName, memberMap.getKey(), store.instance.suggestions);
+						continue;
+					}
+					containingClassNames.add(className);
+				}
+				classNames = containingClassNames.build();
+			}
+
+			for (final Map.Entry<?, ?> entry : maps.entrySet()) {
+				parseMapping(
+					store,
+					inverseMapper,
+					mutableSignature,
 					maps,
-					className,
-					unresolvedClassName,
-					entry
+					entry,
+					false
 					);
+
+				if (!mutableSignature.update("", "", store.description).isMethod())
+					throw new MojoFailureException(String.format(
+						"Malformed mapping %s for %s; can only map methods.",
+						entry,
+						memberMap
+						));
+
+				store.renames.add(new Rename(store));
 			}
+			applyRenames(store, rdepends, nameMaps, signatureMaps, inverseSignatureMaps, mutableSignature, classNames);
+
+			return;
 		}
+
+		if (memberMap.getKey() instanceof Collection<?> && ((Collection<?>) memberMap.getKey()).size() < 1)
+			throw new MojoFailureException(String.format(
+				"Malformed mapping %s -> %s",
+				memberMap.getKey(),
+				maps
+				));
+
+		final String unresolvedClassName = asType(
+			memberMap.getKey() instanceof Collection<?>
+				? ((Collection<?>) memberMap.getKey()).iterator().next()
+				: memberMap.getKey(),
+			"`%4$s' points from a %2$s `%1$s', expected a %5$s, in `%3$s'",
+			false,
+			memberMaps,
+			memberMap,
+			String.class
+			);
+		final String className = inverseNameMaps.get(unresolvedClassName);
+		if (className == null) {
+			store.instance.missingAction.actMemberClass(store.report, unresolvedClassName, memberMap.getKey(), store.instance.suggestions);
+			return;
+		}
+
+		for (final Map.Entry<?, ?> entry : maps.entrySet()) {
+			processSingleClassMappings(
+				store,
+				classes,
+				nameMaps,
+				signatureMaps,
+				inverseSignatureMaps,
+				inverseMapper,
+				mutableSignature,
+				maps,
+				className,
+				unresolvedClassName,
+				entry
+				);
+		}
+		applyRenames(store, rdepends, nameMaps, signatureMaps, inverseSignatureMaps, mutableSignature, ImmutableList.of(className));
 	}
 
+	/**
+	 * Method mappings are deferred to {@link #applyRenames(Store, Multimap,
+	 * BiMap, BiMap, BiMap, MutableSignature, Iterable) applyRenames}, such
+	 * that each class is only visited once.
+	 */
 	private static void processSingleClassMappings(
 	                                               final Store store,
 	                                               final Map<String, ByteClass> classes,
-	                                               final Multimap<String, String> depends,
-	                                               final Multimap<String, String> rdepends,
 	                                               final BiMap<String, String> nameMaps,
 	                                               final BiMap<Signature, Signature> signatureMaps,
 	                                               final BiMap<Signature, Signature> inverseSignatureMaps,
@@ -233,34 +428,26 @@ class MembersSubRoutine extends SubRoutine {
 			parseMapping(store, inverseMapper, mutableSignature, maps, entry, true);
 			final String newName = store.newName, oldName = store.oldName, description = store.description, originalDescription = store.originalDescription;
 			if (description == null) {
-				final Map<String, Signature> classFieldsCache = buildFieldsCache(store, classes.get(className).getLocalSignatures(), signatureMaps);
-				final Signature signature = getClassField(store, classFieldsCache, oldName, originalClassName);
+				final Map<String, Signature> fieldIndex = getFieldIndex(store, className, classes.get(className).getLocalSignatures(), signatureMaps);
+				final Signature signature = getClassField(store, fieldIndex, oldName, originalClassName);
 				if (signature == null)
 					return;
-				attemptFieldMap(signatureMaps, signature, mutableSignature, oldName, newName, className);
+				if (attemptFieldMap(store, signatureMaps, signature, mutableSignature, oldName, newName, className)) {
+					updateFieldIndexEntry(fieldIndex, signature, oldName, newName);
+				}
 				return;
 			}
 
-			updateMember(store, signatureMaps, inverseSignatureMaps, mutableSignature, oldName, newName, description, className, nameMaps, originalDescription, originalClassName);
-
-			if (mutableSignature.isMethod() && !mutableSignature.isConstructor()) {
-				final Set<String> parents = store.parents;
-				if (parents != null) {
-					parents.addAll(depends.get(className));
-				}
-				for (final String inherited : rdepends.get(className)) {
-					if (!updateMember(store, signatureMaps, inverseSignatureMaps, mutableSignature, oldName, newName, description, inherited, nameMaps, originalDescription, nameMaps.get(inherited)))
-						continue;
-
-					if (parents != null) {
-						parents.addAll(depends.get(inherited));
-					}
-				}
-				performParentChecks(store, nameMaps, inverseSignatureMaps, mutableSignature, className, newName, oldName, description, originalDescription);
+			if (mutableSignature.update("", "", description).isMethod()) {
+				store.renames.add(new Rename(store));
+				return;
 			}
-			store.searchCache.clear();
+
+			updateMember(store, signatureMaps, inverseSignatureMaps, mutableSignature, oldName, newName, description, className, nameMaps, originalDescription, originalClassName);
+			// Ambiguous names cannot be corrected in place, so the index is built again when next needed
+			store.fieldIndexes.remove(className);
 		} else if (entry.getValue() instanceof Iterable) {
-			final Map<String, Signature> classFieldsCache = buildFieldsCache(store, classes.get(className).getLocalSignatures(), signatureMaps);
+			final Map<String, Signature> fieldIndex = getFieldIndex(store, className, classes.get(className).getLocalSignatures(), signatureMaps);
 			final Iterable<?> names = (Iterable<?>) entry.getValue();
 			final List<?> oldNames;
 			final int start; {
@@ -331,13 +518,14 @@ class MembersSubRoutine extends SubRoutine {
 					oldNames,
 					String.class
 					);
-				final Signature signature = getClassField(store, classFieldsCache, oldName, originalClassName);
+				final Signature signature = getClassField(store, fieldIndex, oldName, originalClassName);
 				if (signature == null) {
 					continue;
 				}
 
-				attemptFieldMap(signatureMaps, signature, mutableSignature, oldName, newName, className);
-				updateFieldCacheEntry(classFieldsCache, signature, newName);
+				if (attemptFieldMap(store, signatureMaps, signature, mutableSignature, oldName, newName, className)) {
+					updateFieldIndexEntry(fieldIndex, signature, oldName, newName);
+				}
 			}
 		} else
 			throw new MojoFailureException(String.format(
@@ -348,36 +536,40 @@ class MembersSubRoutine extends SubRoutine {
 				));
 	}
 
-	private static void updateFieldCacheEntry(
-	                                          final Map<String, Signature> cache,
+	/**
+	 * Moves a (previously unique) field name in the index to its new name.
+	 */
+	private static void updateFieldIndexEntry(
+	                                          final Map<String, Signature> fieldIndex,
 	                                          final Signature signature,
+	                                          final String oldName,
 	                                          final String newName
 	                                          ) {
-		final int size = cache.size();
-		if (cache.put(newName, signature) != null || size == cache.size()) {
+		fieldIndex.remove(oldName);
+		final int size = fieldIndex.size();
+		if (fieldIndex.put(newName, signature) != null || size == fieldIndex.size()) {
 			// (put() != null) is redundant to (size==cache.size()), but who cares?
-			cache.put(newName, null);
+			fieldIndex.put(newName, null);
 		}
 	}
 
 	private static Signature getClassField(
 	                                       final Store store,
-	                                       final Map<String, Signature> classFieldsCache,
+	                                       final Map<String, Signature> fieldIndex,
 	                                       final String oldName,
 	                                       final String originalClassName
 	                                       ) throws
 	                                       MojoFailureException
 	                                       {
-		final int size = classFieldsCache.size();
-		final Signature signature = classFieldsCache.remove(oldName);
+		final Signature signature = fieldIndex.get(oldName);
 		if (signature != null)
 			return signature;
-		if (size != classFieldsCache.size())
+		if (fieldIndex.containsKey(oldName))
 			throw new MojoFailureException(String.format(
 				"Ambiguous field name %s",
 				oldName
 				));
-		store.instance.missingAction.actField(store.instance.getLog(), classFieldsCache, oldName, originalClassName);
+		store.instance.missingAction.actField(store.report, fieldIndex, oldName, originalClassName);
 		return null;
 	}
 
@@ -444,70 +636,120 @@ class MembersSubRoutine extends SubRoutine {
 				));
 	}
 
-	private static void performParentChecks(
-	                                        final Store store,
-	                                        final BiMap<String, String> nameMaps,
-	                                        final BiMap<Signature, Signature> inverseSignatureMaps,
-	                                        final MutableSignature mutableSignature,
-	                                        Object className_s,
-	                                        final String newName,
-	                                        final String oldName,
-	                                        final String description,
-	                                        final String originalDescription
-	                                        ) {
-		final Set<String> parents = store.parents;
-		if (parents != null) {
-			parents.removeAll(store.searchCache);
-			if (parents.isEmpty())
-				return;
+	/**
+	 * Applies the pending method renames to the specified classes, and every
+	 * class inheriting from them. A method rename applies to the override
+	 * group of the method in each specified class, limited to those classes.
+	 */
+	private static void applyRenames(
+	                                 final Store store,
+	                                 final Multimap<String, String> rdepends,
+	                                 final BiMap<String, String> nameMaps,
+	                                 final BiMap<Signature, Signature> signatureMaps,
+	                                 final BiMap<Signature, Signature> inverseSignatureMaps,
+	                                 final MutableSignature mutableSignature,
+	                                 final Iterable<String> classNames
+	                                 ) throws
+	                                 MojoFailureException
+	                                 {
+		final List<Rename> renames = store.renames;
+		if (renames.isEmpty())
+			return;
 
-			if (className_s instanceof String) {
-				className_s = nameMaps.get(className_s);
-			} else {
-				final Collection<String> originalClassNames = newArrayList();
-				for (final Object className : (Iterable<?>) className_s) {
-					originalClassNames.add(nameMaps.get(className));
+		final Set<String> subtree = store.searchCache;
+		final Set<Signature> targets = store.targets;
+		for (final Rename rename : renames) {
+			if (rename.isConstructor()) {
+				for (final String className : classNames) {
+					updateMember(store, signatureMaps, inverseSignatureMaps, mutableSignature, rename.oldName, rename.newName, rename.description, className, nameMaps, rename.originalDescription, nameMaps.get(className));
 				}
-				className_s = originalClassNames;
+				continue;
 			}
-			for (final String parent : parents) {
-				if (inverseSignatureMaps.containsKey(mutableSignature.update(parent, oldName, description))) {
-					store.instance.getLog().info(String.format(
-						"Expected parent method mapping for `%s'->`%s' from mappings in %s",
-						mutableSignature.update(nameMaps.get(parent), oldName, originalDescription),
-						mutableSignature.forElementName(newName),
-						className_s
-						));
+
+			if (subtree.isEmpty()) {
+				for (final String className : classNames) {
+					subtree.add(className);
+					subtree.addAll(rdepends.get(className));
 				}
 			}
-			parents.clear();
+			for (final String className : classNames) {
+				final Signature originalSignature = inverseSignatureMaps.get(mutableSignature.update(className, rename.oldName, rename.description));
+				if (originalSignature == null) {
+					store.instance.missingAction.actMember(store.report, nameMaps.get(className), className, rename.oldName, rename.newName, rename.description, rename.originalDescription, store.instance.suggestions);
+					continue;
+				}
+				addTargets(store.instance.overrides, originalSignature, subtree, targets);
+			}
+			for (final Signature target : targets) {
+				final Signature signature = signatureMaps.get(target);
+				if (signature.getElementName().equals(rename.oldName)) {
+					renameMember(store, signatureMaps, inverseSignatureMaps, target, signature, rename.newName, nameMaps);
+				} else {
+					// Mapped apart from its group, so it is reported and keeps its name
+					store.instance.missingAction.actMember(store.report, nameMaps.get(signature.getClassName()), signature.getClassName(), rename.oldName, rename.newName, rename.description, rename.originalDescription, store.instance.suggestions);
+				}
+			}
+			targets.clear();
 		}
+
+		subtree.clear();
+		renames.clear();
 	}
 
-	private static void attemptFieldMap(
-	                                    final BiMap<Signature,
-	                                    Signature> signatureMaps,
-	                                    final Signature signature,
-	                                    final MutableSignature mutableSignature,
-	                                    final String oldName,
-	                                    final String newName,
-	                                    final String className
-	                                    ) throws
-	                                    MojoFailureException
-	                                    {
-		try {
-			signatureMaps.put(signature, signature.forElementName(newName));
-		} catch (final IllegalArgumentException ex) {
-			final MojoFailureException mojoEx = new MojoFailureException(String.format(
+	/**
+	 * Adds the members of the override group that are declared in the
+	 * subtree, searching either the group or the subtree, whichever is
+	 * smaller.
+	 */
+	private static void addTargets(
+	                               final OverrideGroups overrides,
+	                               final Signature originalSignature,
+	                               final Set<String> subtree,
+	                               final Set<Signature> targets
+	                               ) {
+		final List<Signature> group = overrides.getGroup(originalSignature);
+		if (group.size() <= subtree.size()) {
+			for (final Signature member : group) {
+				if (subtree.contains(member.getClassName())) {
+					targets.add(member);
+				}
+			}
+		} else {
+			for (final String className : subtree) {
+				final Signature member = originalSignature.forClassName(className);
+				if (overrides.getGroup(member) == group) {
+					targets.add(member);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return false if the new name is already taken, recording the conflict
+	 */
+	private static boolean attemptFieldMap(
+	                                       final Store store,
+	                                       final BiMap<Signature, Signature> signatureMaps,
+	                                       final Signature signature,
+	                                       final MutableSignature mutableSignature,
+	                                       final String oldName,
+	                                       final String newName,
+	                                       final String className
+	                                       ) {
+		final Signature newSignature = signature.forElementName(newName);
+		final Signature occupant = signatureMaps.inverse().get(newSignature);
+		if (occupant != null && !occupant.equals(signature)) {
+			store.conflicts.add(String.format(
 				"Cannot map %s (currently %s) to pre-existing member %s (in class %s)",
 				signature,
 				mutableSignature.update(className, oldName, signature.getDescriptor()),
-				signature.forElementName(newName),
+				newSignature,
 				className
 				));
-			mojoEx.initCause(ex);
-			throw mojoEx;
+			return false;
 		}
+		signatureMaps.put(signature, newSignature);
+		return true;
 	}
 
 	private static String parseDescription(
@@ -522,13 +764,21 @@ class MembersSubRoutine extends SubRoutine {
 			: null;
 	}
 
-	private static Map<String, Signature> buildFieldsCache(final Store store, final List<Signature> localSignatures, final Map<Signature, Signature> signatures) {
-		Map<String, Signature> classFieldsCache = store.classFieldsCache;
-		if (classFieldsCache == null) {
-			classFieldsCache = store.classFieldsCache = new HashMap<String, Signature>(localSignatures.size());
-		} else {
-			classFieldsCache.clear();
-		}
+	/**
+	 * The index maps the current name of each field in the class to its
+	 * original signature, with ambiguous names mapping to null. It is built
+	 * once per class, and kept current as fields are renamed.
+	 */
+	private static Map<String, Signature> getFieldIndex(
+	                                                    final Store store,
+	                                                    final String className,
+	                                                    final List<Signature> localSignatures,
+	                                                    final Map<Signature, Signature> signatures
+	                                                    ) {
+		Map<String, Signature> fieldIndex = store.fieldIndexes.get(className);
+		if (fieldIndex != null)
+			return fieldIndex;
+		store.fieldIndexes.put(className, fieldIndex = new HashMap<String, Signature>(localSignatures.size()));
 
 		int size = 0;
 		for (final Signature signature : localSignatures) {
@@ -537,22 +787,18 @@ class MembersSubRoutine extends SubRoutine {
 			}
 			final String mappedName = signatures.get(signature).getElementName();
 			if (
-					classFieldsCache.put(mappedName, signature) != null
-					|| size == (size = classFieldsCache.size())
+					fieldIndex.put(mappedName, signature) != null
+					|| size == (size = fieldIndex.size())
 					) {
 				// Remove the mapping we accidentally put in...
-				classFieldsCache.put(mappedName, null);
+				fieldIndex.put(mappedName, null);
 			}
 		}
 
-		return classFieldsCache;
+		return fieldIndex;
 	}
 
-	/**
-	 *
-	 * @return true if cache does not contain original (or similarly interpreted as attempted to update as it has not attempted to do so thus far)
-	 */
-	private static boolean updateMember(
+	private static void updateMember(
 	                                    final Store store,
 	                                    final BiMap<Signature, Signature> signatureMaps,
 	                                    final BiMap<Signature, Signature> inverseSignatureMaps,
@@ -567,29 +813,52 @@ class MembersSubRoutine extends SubRoutine {
 	                                    ) throws
 	                                    MojoFailureException
 	                                    {
-		if (!store.searchCache.add(clazz))
-			return false;
-
 		signature.update(clazz, oldName, description);
 
 		final Signature originalSignature = inverseSignatureMaps.get(signature);
 		if (originalSignature != null) {
-			try {
-				signatureMaps.put(originalSignature, signature.forElementName(newName));
-			} catch (final IllegalArgumentException ex) {
-				final MojoFailureException mojoEx = new MojoFailureException(String.format(
-					"Cannot map %s (currently %s) to pre-existing member %s (in class %s)",
-					originalSignature,
-					signature,
-					signature.forElementName(newName),
-					classes.get(clazz)
-					));
-				mojoEx.initCause(ex);
-				throw mojoEx;
-			}
+			renameMember(store, signatureMaps, inverseSignatureMaps, originalSignature, signature, newName, classes);
 		} else {
-			store.instance.missingAction.actMember(store.instance.getLog(), originalClass, oldName, newName, originalDescription, inverseSignatureMaps);
+			store.instance.missingAction.actMember(store.report, originalClass, clazz, oldName, newName, description, originalDescription, store.instance.suggestions);
+		}
+	}
+
+	/**
+	 * Records a conflict instead if the new name is already taken, or the
+	 * member is a library method.
+	 */
+	private static void renameMember(
+	                                 final Store store,
+	                                 final BiMap<Signature, Signature> signatureMaps,
+	                                 final BiMap<Signature, Signature> inverseSignatureMaps,
+	                                 final Signature originalSignature,
+	                                 final Signature signature,
+	                                 final String newName,
+	                                 final Map<String, String> classes
+	                                 ) {
+		final String library = store.instance.libraryMembers.get(originalSignature);
+		if (library != null) {
+			store.conflicts.add(String.format(
+				"Cannot map %s (currently %s) to %s, as it is a method of library class %s",
+				originalSignature,
+				signature,
+				newName,
+				library
+				));
+			return;
+		}
+		final Signature newSignature = signature.forElementName(newName);
+		final Signature occupant = inverseSignatureMaps.get(newSignature);
+		if (occupant != null && !occupant.equals(originalSignature)) {
+			store.conflicts.add(String.format(
+				"Cannot map %s (currently %s) to pre-existing member %s (in class %s)",
+				originalSignature,
+				signature,
+				newSignature,
+				classes.get(signature.getClassName())
+				));
+		} else {
+			signatureMaps.put(originalSignature, newSignature);
 		}
-		return true;
 	}
 }
@@ -0,0 +1,196 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import static com.google.common.collect.Maps.*;
+import static com.wolvereness.overmapped.asm.RetainedSize.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.maven.plugin.logging.Log;
+
+import com.google.common.collect.Multimap;
+import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.Signature;
+
+/**
+ * Estimates the retained size of the main structures of a run. Estimates
+ * assume a 64-bit JVM with compressed references, and count shared strings
+ * once where the sharing is known.
+ */
+final class MemoryReport {
+	private static final long KILOBYTE = 1 << 10;
+	private static final long MEGABYTE = 1 << 20;
+
+	private final Log log;
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private final Map<String, String> structures = newLinkedHashMap();
+
+	MemoryReport(final Log log) {
+		this.log = log;
+	}
+
+	void classes(final Map<String, ByteClass> classes) {
+		long buffers = 0;
+		long size = 0;
+		int signatures = 0;
+		for (final ByteClass clazz : classes.values()) {
+			buffers += ARRAY + clazz.getSize();
+			size += header(clazz.getToken(), clazz.getInterfaces(), clazz.getLocalSignatures());
+			signatures += clazz.getLocalSignatures().size();
+		}
+		size += buffers + classes.size() * (long) (HASH_ENTRY + REFERENCE);
+		structures.put("byteClasses", String.format(
+			"%s (%d classes, %s class buffers, %d local signatures)",
+			size(size),
+			classes.size(),
+			size(buffers),
+			signatures
+			));
+	}
+
+	void files(final List<Pair<ZipEntry, byte[]>> files) {
+		long size = 0;
+		for (final Pair<ZipEntry, byte[]> file : files) {
+			size += OBJECT + 2 * REFERENCE + ZIP_ENTRY + string(file.getLeft().getName()) + ARRAY + file.getRight().length;
+		}
+		structures.put("fileEntries", String.format(
+			"%s (%d entries)",
+			size(size),
+			files.size()
+			));
+	}
+
+	void depends(final String name, final Multimap<String, String> depends) {
+		final long size = depends.keySet().size() * (long) (HASH_ENTRY + OBJECT + OBJECT + ARRAY) + depends.size() * (long) HASH_ENTRY;
+		structures.put(name, String.format(
+			"%s (%d classes, %d edges)",
+			size(size),
+			depends.keySet().size(),
+			depends.size()
+			));
+	}
+
+	void names(final Map<String, String> nameMaps) {
+		long size = 0;
+		for (final Map.Entry<String, String> entry : nameMaps.entrySet()) {
+			size += BI_ENTRY;
+			if (entry.getKey() != entry.getValue()) {
+				size += string(entry.getValue());
+			}
+		}
+		structures.put("nameMaps", String.format(
+			"%s (%d classes)",
+			size(size),
+			nameMaps.size()
+			));
+	}
+
+	/**
+	 * Signatures mapped to themselves share a single instance; the keys that
+	 * are not local signatures of a class are copies for inheriting classes.
+	 */
+	void signatures(final Map<Signature, Signature> signatureMaps, final Map<String, ByteClass> classes) {
+		int local = 0;
+		for (final ByteClass clazz : classes.values()) {
+			local += clazz.getLocalSignatures().size();
+		}
+		int renamed = 0;
+		long size = 0;
+		for (final Map.Entry<Signature, Signature> entry : signatureMaps.entrySet()) {
+			size += BI_ENTRY;
+			final Signature value = entry.getValue();
+			if (entry.getKey() != value) {
+				renamed++;
+				size += SIGNATURE + string(value.getElementName());
+			}
+		}
+		final int copies = signatureMaps.size() - local;
+		size += copies * (long) SIGNATURE;
+		structures.put("signatureMaps", String.format(
+			"%s (%d entries, %d Signature instances: %d copies, %d renamed)",
+			size(size),
+			signatureMaps.size(),
+			signatureMaps.size() + renamed,
+			copies,
+			renamed
+			));
+	}
+
+	void flags(final Map<Signature, Integer> flags) {
+		structures.put("flags", String.format(
+			"%s (%d entries)",
+			size(flags.size() * (long) (HASH_ENTRY + OBJECT)),
+			flags.size()
+			));
+	}
+
+	void maps(final Iterable<?> maps) {
+		structures.put("maps", size(yaml(maps)));
+	}
+
+	static long yaml(final Object object) {
+		if (object instanceof String)
+			return string((String) object);
+		if (object instanceof Map) {
+			long size = OBJECT + ARRAY;
+			for (final Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+				size += BI_ENTRY + yaml(entry.getKey()) + yaml(entry.getValue());
+			}
+			return size;
+		}
+		if (object instanceof Iterable) {
+			long size = OBJECT + ARRAY;
+			for (final Object element : (Iterable<?>) object) {
+				size += REFERENCE + yaml(element);
+			}
+			return size;
+		}
+		return object == null ? 0 : OBJECT;
+	}
+
+	void log(final String phase) {
+		final MemoryUsage heap = memory.getHeapMemoryUsage();
+		log.info(String.format(
+			"Memory after %s: %s heap used of %s committed",
+			phase,
+			size(heap.getUsed()),
+			size(heap.getCommitted())
+			));
+		for (final Map.Entry<String, String> structure : structures.entrySet()) {
+			log.info(String.format(
+				"  %-16s ~%s",
+				structure.getKey(),
+				structure.getValue()
+				));
+		}
+	}
+
+	private static String size(final long bytes) {
+		if (bytes < KILOBYTE)
+			return bytes + " B";
+		if (bytes < MEGABYTE)
+			return String.format("%.1f kB", bytes / (double) KILOBYTE);
+		return String.format("%.1f MB", bytes / (double) MEGABYTE);
+	}
+}
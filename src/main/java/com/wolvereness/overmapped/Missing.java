@@ -16,10 +16,11 @@
  */
 package com.wolvereness.overmapped;
 
+import static com.google.common.collect.Lists.*;
+
 import java.util.Map;
 
 import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.plugin.logging.Log;
 
 import com.wolvereness.overmapped.asm.Signature;
 
@@ -28,7 +29,9 @@ public enum Missing {
 		{
 			@Override
 			public void act(
-			                final Log log,
+			                final MissingReport report,
+			                final String section,
+			                final String className,
 			                final String message,
 			                final Object string1,
 			                final Object string2,
@@ -36,14 +39,16 @@ public enum Missing {
 			                final Object string4,
 			                final Object verbose
 			                ) {
-				log.warn(makeMessage(message, string1, string2, string3, string4));
+				report.record(section, className, message, string1, string2, string3, string4);
 			}
 		},
 	FAIL
 		{
 			@Override
 			public void act(
-			                final Log log,
+			                final MissingReport report,
+			                final String section,
+			                final String className,
 			                final String message,
 			                final Object string1,
 			                final Object string2,
@@ -60,7 +65,9 @@ public enum Missing {
 		{
 			@Override
 			public void act(
-			                final Log log,
+			                final MissingReport report,
+			                final String section,
+			                final String className,
 			                final String message,
 			                final Object string1,
 			                final Object string2,
@@ -75,7 +82,9 @@ public enum Missing {
 		{
 			@Override
 			public void act(
-			                final Log log,
+			                final MissingReport report,
+			                final String section,
+			                final String className,
 			                final String message,
 			                final Object string1,
 			                final Object string2,
@@ -85,14 +94,19 @@ public enum Missing {
 			                ) throws
 			                MojoFailureException
 			                {
-				WARN.act(log, message, string1, string2, string3, string4, verbose);
-				log.info("Verbose:\n" + verbose);
+				WARN.act(report, section, className, message, string1, string2, string3, string4, verbose);
+				report.getLog().warn(makeMessage(message, string1, string2, string3, string4));
+				if (verbose != null) {
+					report.getLog().info("Verbose:\n" + verbose);
+				}
 			}
 		}
 	;
 
 	abstract void act(
-	                  final Log log,
+	                  final MissingReport report,
+	                  final String section,
+	                  final String className,
 	                  final String message,
 	                  final Object string1,
 	                  final Object string2,
@@ -120,58 +134,61 @@ public enum Missing {
 	}
 
 	public void actClass(
-	                     final Log log,
+	                     final MissingReport report,
 	                     final String originalName,
 	                     final String newName,
-	                     final Map<String, String> classes
+	                     final Suggestions suggestions
 	                     ) throws
 	                     MojoFailureException
 	                     {
-		act(log, "Could not find `%s' to map to `%s'", originalName, newName, null, null, classes);
+		act(report, "classes", originalName, "Could not find `%s' to map to `%s'", originalName, newName, null, null, suggestions.forClass(originalName));
 	}
 
 	public void actMember(
-	                      final Log log,
+	                      final MissingReport report,
 	                      final String context,
+	                      final String className,
 	                      final String name,
 	                      final String newName,
 	                      final String description,
-	                      final Map<Signature, Signature> signatures
+	                      final String unresolvedDescription,
+	                      final Suggestions suggestions
 	                      ) throws
 	                      MojoFailureException
 	                      {
-		act(log, "Could not find member `%2$s' - `%4$s' in `%1$s' (mapping to `%3$s')", context, name, newName, description, signatures);
+		act(report, "members", context, "Could not find member `%2$s' - `%4$s' in `%1$s' (mapping to `%3$s')", context, name, newName, unresolvedDescription, suggestions.forMember(className, name, description));
 	}
 
 	public void actFlag(
-	                    final Log log,
+	                    final MissingReport report,
+	                    final String className,
 	                    final Map.Entry<?, ?> entry,
-	                    final Map<Signature, Signature> signatures
+	                    final Object suggestion
 	                    ) throws
 	                    MojoFailureException
 	                    {
-		act(log, "Could not find member `%s', setting flag %d", entry.getKey(), entry.getValue(), null, null, signatures);
+		act(report, "flags", className, "Could not find member `%s', setting flag %d", entry.getKey(), entry.getValue(), null, null, suggestion);
 	}
 
 	public void actMemberClass(
-	                           final Log log,
+	                           final MissingReport report,
 	                           final String originalName,
 	                           final Object mappings,
-	                           final Map<String, String> classes
+	                           final Suggestions suggestions
 	                           ) throws
 	                           MojoFailureException
 	                           {
-		act(log, "Could not find base class name `%s' for member mappings `%s'", originalName, mappings, null, null, classes);
+		act(report, "members", originalName, "Could not find base class name `%s' for member mappings `%s'", originalName, mappings, null, null, suggestions.forClass(originalName));
 	}
 
 	public void actField(
-	                     final Log log,
+	                     final MissingReport report,
 	                     final Map<String, Signature> classFieldsCache,
 	                     final String oldName,
 	                     final String className
 	                     ) throws
 	                     MojoFailureException
 	                     {
-		act(log, "Could not find field name `%s' in fields `%s' of `%s'", oldName, classFieldsCache, className, null, null);
+		act(report, "members", className, "Could not find field name `%s' in fields `%s' of `%s'", oldName, newArrayList(classFieldsCache.keySet()), className, null, null);
 	}
 }
@@ -0,0 +1,207 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import static com.google.common.collect.Lists.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.TreeMultiset;
+import com.google.common.io.Files;
+
+/**
+ * Collects mappings that could not be applied. Messages are only formatted
+ * when written, either as a sample in the log or to a report file.
+ */
+final class MissingReport {
+	private static final class Record {
+		final String section;
+		final int layer;
+		final String className;
+		final String message;
+		final Object[] arguments;
+
+		Record(
+		       final String section,
+		       final int layer,
+		       final String className,
+		       final String message,
+		       final Object[] arguments
+		       ) {
+			this.section = section;
+			this.layer = layer;
+			this.className = className;
+			this.message = message;
+			this.arguments = arguments;
+		}
+
+		String getPackage() {
+			final int split = className.lastIndexOf('/');
+			return split == -1 ? "" : className.substring(0, split);
+		}
+
+		String getMessage() {
+			return String.format(message, arguments);
+		}
+	}
+
+	private static final int PACKAGE_LIMIT = 10;
+
+	private final Log log;
+	private final List<Record> records = newArrayList();
+	private int layer;
+
+	MissingReport(final Log log) {
+		this.log = log;
+	}
+
+	/**
+	 * @return a report for the same layer that logs to the specified log,
+	 *     to later be {@link #addAll(MissingReport) added} to this report
+	 */
+	MissingReport fork(final Log log) {
+		final MissingReport report = new MissingReport(log);
+		report.layer = layer;
+		return report;
+	}
+
+	Log getLog() {
+		return log;
+	}
+
+	void setLayer(final int layer) {
+		this.layer = layer;
+	}
+
+	void record(
+	            final String section,
+	            final String className,
+	            final String message,
+	            final Object...arguments
+	            ) {
+		records.add(new Record(section, layer, className, message, arguments));
+	}
+
+	void addAll(final MissingReport report) {
+		records.addAll(report.records);
+	}
+
+	boolean isEmpty() {
+		return records.isEmpty();
+	}
+
+	/**
+	 * Logs the number of missing mappings by section, layer, and package,
+	 * followed by the first of the messages.
+	 */
+	void summarize(final int sampleSize) {
+		if (records.isEmpty())
+			return;
+
+		final Multiset<String> sections = LinkedHashMultiset.create();
+		final Multiset<Integer> layers = TreeMultiset.create();
+		final Multiset<String> packages = LinkedHashMultiset.create();
+		for (final Record record : records) {
+			sections.add(record.section);
+			layers.add(record.layer);
+			final String packageName = record.getPackage();
+			packages.add(packageName.length() == 0 ? "(default)" : packageName);
+		}
+
+		log.warn(String.format(
+			"%d mapping(s) could not be found: %s",
+			records.size(),
+			format(sections)
+			));
+		log.warn("By layer: " + format(layers));
+		log.warn("By package: " + format(mostCommon(packages, PACKAGE_LIMIT)));
+
+		final int shown = Math.min(sampleSize, records.size());
+		for (final Record record : records.subList(0, shown)) {
+			log.warn(record.getMessage());
+		}
+		if (shown != 0 && shown < records.size()) {
+			log.warn(String.format(
+				"... and %d more",
+				records.size() - shown
+				));
+		}
+	}
+
+	/**
+	 * Writes every record as a line of comma separated values.
+	 */
+	void write(final File file) throws IOException {
+		final Writer writer = Files.newWriter(file, Charset.forName("UTF8"));
+		try {
+			writer.write("section,layer,package,class,message\n");
+			for (final Record record : records) {
+				writer
+					.append(record.section).append(',')
+					.append(Integer.toString(record.layer)).append(',')
+					.append(escape(record.getPackage())).append(',')
+					.append(escape(record.className)).append(',')
+					.append(escape(record.getMessage())).append('\n');
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static String escape(final String value) {
+		if (value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1)
+			return value;
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static <T> List<Multiset.Entry<T>> mostCommon(final Multiset<T> multiset, final int limit) {
+		final List<Multiset.Entry<T>> entries = newArrayList(multiset.entrySet());
+		Collections.sort(entries, new Comparator<Multiset.Entry<T>>()
+			{
+				@Override
+				public int compare(final Multiset.Entry<T> o1, final Multiset.Entry<T> o2) {
+					return o2.getCount() - o1.getCount();
+				}
+			});
+		return entries.subList(0, Math.min(limit, entries.size()));
+	}
+
+	private static String format(final Multiset<?> multiset) {
+		return format(multiset.entrySet());
+	}
+
+	private static String format(final Iterable<? extends Multiset.Entry<?>> entries) {
+		final StringBuilder builder = new StringBuilder();
+		for (final Multiset.Entry<?> entry : entries) {
+			if (builder.length() != 0) {
+				builder.append(", ");
+			}
+			builder.append(entry.getElement()).append(" (").append(entry.getCount()).append(')');
+		}
+		return builder.toString();
+	}
+}
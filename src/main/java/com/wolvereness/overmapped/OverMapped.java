@@ -25,10 +25,14 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
@@ -51,23 +55,33 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.objectweb.asm.commons.Remapper;
 import org.yaml.snakeyaml.Yaml;
 
+import com.google.common.base.Function;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.ClassIndex;
+import com.wolvereness.overmapped.asm.FlagTable;
+import com.wolvereness.overmapped.asm.LibraryIndex;
+import com.wolvereness.overmapped.asm.MemberRules;
+import com.wolvereness.overmapped.asm.RemapCache;
 import com.wolvereness.overmapped.asm.Signature;
 import com.wolvereness.overmapped.lib.MultiProcessor;
+import com.wolvereness.overmapped.lib.ShardedBiMap;
+import com.wolvereness.overmapped.lib.TraceRecorder;
 import com.wolvereness.overmapped.lib.WellOrdered;
 import com.wolvereness.overmapped.lib.WellOrdered.CircularOrderException;
 import com.wolvereness.overmapped.lib.WellOrdered.WellOrderedException;
 
-@Mojo(name="map")
+@Mojo(name="map", threadSafe=true)
 public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler {
 
 	@Parameter(required=true, property="mapping.maps")
@@ -88,6 +102,41 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 	@Parameter(defaultValue="WARN", required=true, property="mapping.missing")
 	private String missing;
 	Missing missingAction = Missing.WARN;
+	Suggestions suggestions;
+	OverrideGroups overrides;
+
+	@Parameter(required=false, property="mapping.missingReport")
+	private File missingReport;
+	MissingReport report;
+
+	@Parameter(required=false, property="mapping.timings")
+	private File timingsFile;
+	private PhaseTimings timings;
+
+	@Parameter(defaultValue="0", property="mapping.slowestClasses")
+	private int slowestClasses;
+
+	@Parameter(required=false, property="mapping.trace")
+	private File traceFile;
+	private TraceRecorder tracer;
+
+	@Parameter(defaultValue="10", property="mapping.progressInterval")
+	private int progressInterval;
+	private Progress progress;
+
+	@Parameter(defaultValue="false", property="mapping.memoryReport")
+	private boolean memoryReport;
+	private MemoryReport memory;
+
+	@Parameter(required=false, property="mapping.cache")
+	private File cacheDirectory;
+
+	@Parameter(defaultValue="false", property="mapping.shared")
+	private boolean shared;
+
+	@Parameter(required=false, property="mapping.libraries")
+	private File[] libraries;
+	Map<Signature, String> libraryMembers = ImmutableMap.of();
 
 	@Parameter(defaultValue="false", property="mapping.findParents")
 	private boolean findParents;
@@ -95,10 +144,18 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 	@Parameter(defaultValue="true", property="mapping.correctEnums")
 	private boolean correctEnums;
 
+	private static final int SHARDS_PER_CORE = 4;
+	private static final int MISSING_SAMPLE_SIZE = 20;
+	private static final String CLASS_INDEX = "classes.index";
+	private static final String LIBRARY_INDEXES = "libraries";
+
 	private volatile Pair<Thread, Throwable> uncaught;
 
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException {
+		timings = new PhaseTimings();
+		memory = memoryReport ? new MemoryReport(getLog()) : null;
+		final PhaseTimings.Timer licenseTimer = timings.start("license");
 		final InputStream license = OverMapped.class.getResourceAsStream("/COPYING.HEADER.TXT");
 		if (license != null) {
 			try {
@@ -114,6 +171,8 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 		} else {
 			getLog().warn("Missing LICENSE data");
 		}
+		licenseTimer.stop(0);
+		progress = new Progress(getLog(), progressInterval);
 		try {
 			process();
 		} catch (final MojoExecutionException ex) {
@@ -122,38 +181,84 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 			throw ex;
 		} catch (final Throwable t) {
 			throw new MojoExecutionException(null, t);
+		} finally {
+			progress.shutdown();
 		}
 	}
 
 	private void process() throws Throwable {
 		validateInput();
 
-		final MultiProcessor executor = MultiProcessor.newMultiProcessor(cores - 1, new ThreadFactoryBuilder().setDaemon(true).setNameFormat(OverMapped.class.getName() + "-processor-%d").setUncaughtExceptionHandler(this).build());
+		final List<File> libraryFiles = listLibraries();
+		final List<String> libraryHashes = newArrayList();
+		if (!libraryFiles.isEmpty()) {
+			final PhaseTimings.Timer timer = timings.start("hashLibraries");
+			for (final File library : libraryFiles) {
+				try {
+					libraryHashes.add(LibraryIndex.hash(library));
+				} catch (final IOException ex) {
+					final Throwable throwable = new MojoFailureException(String.format(
+						"Could not read library `%s'",
+						library
+						));
+					throwable.initCause(ex);
+					throw throwable;
+				}
+			}
+			timer.stop(libraryFiles.size());
+		}
+
+		final RunCache runCache = cacheDirectory == null ? null : new RunCache(cacheDirectory);
+		String fingerprint = null;
+		if (runCache != null) {
+			final PhaseTimings.Timer timer = timings.start("fingerprint");
+			fingerprint = fingerprint(runCache, libraryHashes);
+			timer.stop(2);
+			if (restore(runCache, fingerprint))
+				return;
+		}
+
+		tracer = traceFile == null ? null : new TraceRecorder();
+		final MultiProcessor executor = shared && tracer == null
+			? SharedEngine.getProcessor(cores)
+			: MultiProcessor.newMultiProcessor(cores - 1, new ThreadFactoryBuilder().setDaemon(true).setNameFormat(OverMapped.class.getName() + "-processor-%d").setUncaughtExceptionHandler(this).build(), tracer);
+		timings.setProcessorThreads(executor.getThreads());
 		final Future<?> fileCopy = executor.submit(
+			"copyOriginal",
 			new Callable<Object>()
 				{
 					@Override
 					public Object call() throws Exception {
+						final PhaseTimings.Timer timer = timings.startTask("copyOriginal");
 						if (original != null) {
 							if (original.exists()) {
 								original.delete();
 							}
 							Files.copy(input, original);
 						}
+						timer.stop(original != null ? 1 : 0);
 						return null;
 					}
 				}
 			);
 		final Future<Iterable<?>> mappings = executor.submit(
+			"loadMaps",
 			new Callable<Iterable<?>>()
 				{
 					@Override
 					public Iterable<?> call() throws Exception {
-						final Object yaml = new Yaml().load(Files.toString(maps, Charset.forName("UTF8")));
-						if (yaml instanceof Iterable)
+						final PhaseTimings.Timer timer = timings.startTask("loadMaps");
+						final Object yaml = shared
+							? SharedEngine.loadMaps(maps)
+							: new Yaml().load(Files.toString(maps, Charset.forName("UTF8")));
+						if (yaml instanceof Iterable) {
+							timer.stop(Iterables.size((Iterable<?>) yaml));
 							return (Iterable<?>) yaml;
-						if (yaml instanceof Map)
+						}
+						if (yaml instanceof Map) {
+							timer.stop(1);
 							return ImmutableList.of(yaml);
+						}
 						throw new ClassCastException(String.format(
 							"%s (%s) implements neither %s nor %s",
 							yaml,
@@ -165,11 +270,65 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 				}
 			);
 
+		final Future<Libraries> libraryClasses = libraryFiles.isEmpty() ? null : executor.submit(
+			"readLibraries",
+			new Callable<Libraries>()
+				{
+					@Override
+					public Libraries call() throws Exception {
+						final PhaseTimings.Timer timer = timings.startTask("readLibraries");
+						final File directory = cacheDirectory == null ? null : new File(cacheDirectory, LIBRARY_INDEXES);
+						final List<LibraryIndex> indexes = newArrayList();
+						for (int i = 0; i < libraryFiles.size(); i++) {
+							indexes.add(shared
+								? SharedEngine.readLibrary(libraryFiles.get(i), libraryHashes.get(i), directory)
+								: LibraryIndex.read(libraryFiles.get(i), libraryHashes.get(i), directory)
+								);
+						}
+						final Libraries context = new Libraries(indexes);
+						timer.stop(context.size());
+						return context;
+					}
+				}
+			);
+
 		final Map<String, ByteClass> byteClasses = newLinkedHashMap();
 		final List<Pair<ZipEntry, byte[]>> fileEntries= newArrayList();
 
-		readClasses(executor, byteClasses, fileEntries);
+		PhaseTimings.Timer timer = timings.start("readClasses");
+		final File indexFile = cacheDirectory == null ? null : new File(cacheDirectory, CLASS_INDEX);
+		final ClassIndex index = shared
+			? SharedEngine.newClassIndex(input, indexFile)
+			: indexFile == null ? null : new ClassIndex(indexFile);
+		readClasses(executor, byteClasses, fileEntries, index);
+		if (shared) {
+			SharedEngine.putClassIndex(input, index);
+		}
+		timer.stop(byteClasses.size() + fileEntries.size());
+		if (index != null) {
+			getLog().info(String.format(
+				"Read %d of %d class headers from the index",
+				index.getHits(),
+				byteClasses.size()
+				));
+			try {
+				index.write();
+			} catch (final IOException ex) {
+				final Throwable throwable = new MojoFailureException(String.format(
+					"Could not write class index to `%s'",
+					cacheDirectory
+					));
+				throwable.initCause(ex);
+				throw throwable;
+			}
+		}
+		if (memory != null) {
+			memory.classes(byteClasses);
+			memory.files(fileEntries);
+			memory.log("readClasses");
+		}
 
+		timer = timings.start("reorderEntries");
 		try {
 			reorderEntries(byteClasses);
 		} catch (final CircularOrderException ex) {
@@ -177,17 +336,44 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 			throwable.initCause(ex);
 			throw throwable;
 		}
+		timer.stop(byteClasses.size());
 
+		timer = timings.start("processDepends");
 		final Multimap<String, String> depends = processDepends(byteClasses);
 		final Multimap<String, String> rdepends = processReverseDepends(depends);
+		timer.stop(byteClasses.size());
+		if (memory != null) {
+			memory.depends("depends", depends);
+			memory.depends("rdepends", rdepends);
+			memory.log("processDepends");
+		}
 
 		final BiMap<String, String> nameMaps = HashBiMap.create(byteClasses.size());
 		final BiMap<String, String> inverseNameMaps = nameMaps.inverse();
 
-		final BiMap<Signature, Signature> signatureMaps = HashBiMap.create();
+		timer = timings.start("processShards");
+		final Map<String, Integer> shards = processShards(byteClasses, depends, cores == 1 ? 1 : cores * SHARDS_PER_CORE);
+		timer.stop(byteClasses.size());
+		final Function<Object, Integer> shardRouter = new Function<Object, Integer>()
+			{
+				@Override
+				public Integer apply(final Object input) {
+					return input instanceof Signature ? shards.get(((Signature) input).getClassName()) : null;
+				}
+			};
+		final List<BiMap<Signature, Signature>> signatureShards = newArrayList();
+		for (int i = 0, count = Math.max(1, newHashSet(shards.values()).size()); i < count; i++) {
+			signatureShards.add(HashBiMap.<Signature, Signature>create());
+		}
+		final BiMap<Signature, Signature> signatureMaps = new ShardedBiMap<Signature, Signature>(signatureShards, shardRouter, shardRouter);
 		final BiMap<Signature, Signature> inverseSignatureMaps = signatureMaps.inverse();
 
+		suggestions = new Suggestions(byteClasses, depends, nameMaps, signatureMaps);
+
 		final Map<Signature, Integer> flags = newHashMap();
+		final List<MemberRules.Rule> memberRules = newArrayList();
+		final List<FlagTable.Rule> flagRules = newArrayList();
+		final List<String> conflicts = newArrayList();
 
 		final Remapper inverseMapper = new Remapper()
 			{
@@ -200,21 +386,55 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 				}
 			};
 
-		prepareSignatures(byteClasses, rdepends, nameMaps, signatureMaps);
+		timer = timings.start("prepareSignatures");
+		overrides = new OverrideGroups();
+		prepareSignatures(byteClasses, rdepends, nameMaps, signatureMaps, overrides);
+		overrides.build();
+		if (libraryClasses != null) {
+			final Libraries context;
+			try {
+				context = libraryClasses.get();
+			} catch (final ExecutionException ex) {
+				final Throwable throwable = new MojoFailureException("Could not read libraries");
+				throwable.initCause(ex.getCause());
+				throw throwable;
+			}
+			libraryMembers = context.prepareSignatures(byteClasses, signatureMaps, overrides);
+			getLog().info(String.format(
+				"Read %d library classes from %d artifact(s), %d of them from the index",
+				context.size(),
+				context.getArtifacts(),
+				context.getIndexed()
+				));
+		}
+		timer.stop(byteClasses.size());
+		if (memory != null) {
+			memory.names(nameMaps);
+			memory.signatures(signatureMaps, byteClasses);
+			memory.log("prepareSignatures");
+		}
 
 		final Signature.MutableSignature signature = Signature.newMutableSignature("", "", "");
 		final Set<String> searchCache = newHashSet();
 
+		report = new MissingReport(getLog());
+		int layer = 0;
+		final Progress.Counter layers = progress.start("mapping", "layers", Iterables.size(mappings.get()));
 		for (final Object mapping : mappings.get()) {
 			final Map<?,?> map = (Map<?, ?>) mapping;
+			report.setLayer(++layer);
 
 			for (final SubRoutine subRoutine : SubRoutine.SUB_ROUTINES) {
+				final Object section = map.get(subRoutine.tag);
+				timer = section == null ? null : timings.start(subRoutine.tag, layer);
 				try {
 					subRoutine.invoke(
 						this,
+						executor,
 						byteClasses,
 						depends,
 						rdepends,
+						shards,
 						nameMaps,
 						inverseNameMaps,
 						signatureMaps,
@@ -223,17 +443,71 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 						signature,
 						searchCache,
 						flags,
+						memberRules,
+						flagRules,
+						conflicts,
 						map
 						);
 				} catch (final Exception ex) {
+					reportConflicts(conflicts);
 					final Throwable throwable = new MojoFailureException(
 						"Failed to parse mappings in " + mapping);
 					throwable.initCause(ex);
 					throw throwable;
 				}
+				if (timer != null) {
+					timer.stop(section instanceof Map ? ((Map<?, ?>) section).size() : 0);
+				}
+			}
+			layers.increment();
+		}
+		layers.stop();
+
+		if (memory != null) {
+			memory.names(nameMaps);
+			memory.signatures(signatureMaps, byteClasses);
+			memory.flags(flags);
+			memory.maps(mappings.get());
+			memory.log("mapping");
+		}
+
+		report.summarize(missingAction == Missing.VERBOSE ? 0 : MISSING_SAMPLE_SIZE);
+		if (missingReport != null) {
+			try {
+				report.write(missingReport);
+			} catch (final IOException ex) {
+				final Throwable throwable = new MojoFailureException(String.format(
+					"Could not write missing mappings to `%s'",
+					missingReport
+					));
+				throwable.initCause(ex);
+				throw throwable;
 			}
 		}
 
+		final MemberRules rules = memberRules.isEmpty() ? null : new MemberRules(memberRules, signatureMaps, byteClasses, libraryMembers, overrides.getGroups());
+		if (rules != null) {
+			timer = timings.start("memberRules");
+			conflicts.addAll(rules.findCollisions(nameMaps));
+			timer.stop(signatureMaps.size());
+		}
+
+		if (!conflicts.isEmpty()) {
+			reportConflicts(conflicts);
+			throw new MojoFailureException(String.format(
+				"Found %d conflicting mapping(s)",
+				conflicts.size()
+				));
+		}
+
+		if (findParents) {
+			timer = timings.start("findParents");
+			for (final String inconsistency : overrides.findInconsistencies(executor, signatureMaps, nameMaps)) {
+				getLog().info(inconsistency);
+			}
+			timer.stop(byteClasses.size());
+		}
+
 		try {
 			fileCopy.get();
 		} catch (final ExecutionException ex) {
@@ -244,10 +518,61 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 				));
 		}
 
-		writeToFile(executor, byteClasses, fileEntries, nameMaps, signatureMaps, flags);
+		final FlagTable flagTable = new FlagTable(flags, flagRules);
+		RemapCache cache = null;
+		if (cacheDirectory != null) {
+			try {
+				cache = new RemapCache(cacheDirectory, RunCache.hashPlugin(), flagTable, rules, correctEnums);
+			} catch (final IOException ex) {
+				final Throwable throwable = new MojoFailureException(String.format(
+					"Could not hash the plugin for `%s'",
+					cacheDirectory
+					));
+				throwable.initCause(ex);
+				throw throwable;
+			}
+		}
+
+		timer = timings.start("writeToFile");
+		writeToFile(executor, byteClasses, fileEntries, nameMaps, signatureMaps, flagTable, rules, cache);
+		timer.stop(byteClasses.size() + fileEntries.size());
+		if (cache != null) {
+			getLog().info(String.format(
+				"Reused %d of %d classes from `%s'",
+				cache.getHits(),
+				cache.getHits() + cache.getMisses(),
+				cacheDirectory
+				));
+		}
+		if (memory != null) {
+			memory.log("writeToFile");
+		}
 
 		executor.shutdown();
 
+		timings.log(getLog());
+		if (slowestClasses > 0) {
+			timings.logSlowestClasses(getLog(), byteClasses.values(), slowestClasses);
+		}
+		if (tracer != null) {
+			try {
+				final Writer writer = Files.newWriter(traceFile, Charset.forName("UTF8"));
+				try {
+					tracer.write(writer);
+				} finally {
+					writer.close();
+				}
+			} catch (final IOException ex) {
+				final Throwable throwable = new MojoFailureException(String.format(
+					"Could not write trace to `%s'",
+					traceFile
+					));
+				throwable.initCause(ex);
+				throw throwable;
+			}
+		}
+		writeTimings();
+
 		final Pair<Thread, Throwable> uncaught = this.uncaught;
 		if (uncaught != null)
 			throw new MojoExecutionException(
@@ -257,6 +582,99 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 					),
 				uncaught.getRight()
 				);
+
+		if (runCache != null) {
+			try {
+				runCache.store(fingerprint, output, missingReport);
+			} catch (final IOException ex) {
+				getLog().warn(String.format(
+					"Could not store outputs in `%s'",
+					cacheDirectory
+					), ex);
+			}
+		}
+	}
+
+	private void writeTimings() throws MojoFailureException {
+		if (timingsFile != null) {
+			try {
+				timings.write(timingsFile);
+			} catch (final IOException ex) {
+				final MojoFailureException exception = new MojoFailureException(String.format(
+					"Could not write timings to `%s'",
+					timingsFile
+					));
+				exception.initCause(ex);
+				throw exception;
+			}
+		}
+	}
+
+	/**
+	 * Fingerprints everything the outputs depend on, being the plugin, the
+	 * input, the maps, the libraries, and the parameters that change the
+	 * outputs.
+	 */
+	private String fingerprint(final RunCache runCache, final List<String> libraryHashes) throws MojoFailureException {
+		try {
+			runCache
+				.putPlugin()
+				.putFile(input)
+				.putFile(maps)
+				.putString(missing)
+				.putBoolean(findParents)
+				.putBoolean(correctEnums)
+				.putBoolean(missingReport != null);
+			for (final String hash : libraryHashes) {
+				runCache.putString(hash);
+			}
+			return runCache.getFingerprint();
+		} catch (final IOException ex) {
+			final MojoFailureException exception = new MojoFailureException(String.format(
+				"Could not fingerprint `%s' and `%s'",
+				input,
+				maps
+				));
+			exception.initCause(ex);
+			throw exception;
+		}
+	}
+
+	/**
+	 * @return true if the outputs of an earlier run were restored
+	 */
+	private boolean restore(final RunCache runCache, final String fingerprint) throws MojoFailureException {
+		final PhaseTimings.Timer timer = timings.start("restore");
+		try {
+			if (!runCache.restore(fingerprint, output, missingReport)) {
+				timer.stop(0);
+				return false;
+			}
+			// Only copied here on a hit, as copyOriginal does it otherwise
+			if (original != null) {
+				if (original.exists()) {
+					original.delete();
+				}
+				Files.copy(input, original);
+			}
+		} catch (final IOException ex) {
+			final MojoFailureException exception = new MojoFailureException(String.format(
+				"Could not restore run %s from `%s'",
+				fingerprint,
+				cacheDirectory
+				));
+			exception.initCause(ex);
+			throw exception;
+		}
+		timer.stop(1);
+		getLog().info(String.format(
+			"Restored the outputs of run %s from `%s'",
+			fingerprint,
+			cacheDirectory
+			));
+		timings.log(getLog());
+		writeTimings();
+		return true;
 	}
 
 	private void writeToFile(
@@ -265,30 +683,57 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 	                         final List<Pair<ZipEntry, byte[]>> fileEntries,
 	                         final BiMap<String, String> nameMaps,
 	                         final BiMap<Signature, Signature> signatureMaps,
-	                         final Map<Signature, Integer> flags
+	                         final FlagTable flags,
+	                         final MemberRules rules,
+	                         final RemapCache cache
 	                         ) throws
 	                         IOException,
 	                         FileNotFoundException,
 	                         InterruptedException,
 	                         ExecutionException
 	                         {
+		final Progress.Counter counter = progress.start("writeToFile", "classes", byteClasses.size());
 		final Collection<Future<Pair<ZipEntry, byte[]>>> classWrites = newArrayList();
 		for (final ByteClass clazz : byteClasses.values()) {
-			classWrites.add(executor.submit(clazz.callable(signatureMaps, nameMaps, byteClasses, flags, correctEnums)));
+			classWrites.add(executor.submit(
+				tracer == null ? null : "remap " + clazz.getToken(),
+				new Callable<Pair<ZipEntry, byte[]>>()
+					{
+						@Override
+						public Pair<ZipEntry, byte[]> call() throws Exception {
+							final Pair<ZipEntry, byte[]> entry = cache == null
+								? clazz.call(signatureMaps, nameMaps, byteClasses, flags, rules, correctEnums)
+								: cache.call(clazz, signatureMaps, nameMaps, byteClasses);
+							counter.increment();
+							return entry;
+						}
+					}
+				));
 		}
 
 		FileOutputStream fileOut = null;
 		JarOutputStream jar = null;
 		try {
 			jar = new JarOutputStream(fileOut = new FileOutputStream(output));
+			final TraceRecorder tracer = this.tracer;
+			long start = tracer == null ? 0 : tracer.begin();
 			for (final Pair<ZipEntry, byte[]> fileEntry : fileEntries) {
 				jar.putNextEntry(fileEntry.getLeft());
 				jar.write(fileEntry.getRight());
 			}
+			if (tracer != null) {
+				tracer.end("write files", TraceRecorder.CALLER, start);
+			}
 			for (final Future<Pair<ZipEntry, byte[]>> fileEntryFuture : classWrites) {
 				final Pair<ZipEntry, byte[]> fileEntry = fileEntryFuture.get();
+				if (tracer != null) {
+					start = tracer.begin();
+				}
 				jar.putNextEntry(fileEntry.getLeft());
 				jar.write(fileEntry.getRight());
+				if (tracer != null) {
+					tracer.end("write " + fileEntry.getLeft().getName(), TraceRecorder.CALLER, start);
+				}
 			}
 		} finally {
 			if (jar != null) {
@@ -303,6 +748,7 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 				} catch (final IOException ex) {
 				}
 			}
+			counter.stop();
 		}
 	}
 
@@ -325,6 +771,20 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 
 		verifyOut(output);
 		verifyOut(original);
+		if (cacheDirectory != null && cacheDirectory.exists() && !cacheDirectory.isDirectory())
+			throw new MojoFailureException(String.format(
+				"Cannot cache in non-directory `%s'",
+				cacheDirectory
+				));
+		if (libraries != null) {
+			for (final File library : libraries) {
+				if (!library.exists())
+					throw new MojoFailureException(String.format(
+						"Cannot read non-existent library `%s'",
+						library
+						));
+			}
+		}
 		if (output == null) {
 			output = input;
 		}
@@ -343,11 +803,40 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 		}
 	}
 
+	/**
+	 * Directories are replaced by the jars and jmods they contain, in order
+	 * of name.
+	 */
+	private List<File> listLibraries() {
+		final List<File> files = newArrayList();
+		if (libraries == null)
+			return files;
+		for (final File library : libraries) {
+			if (!library.isDirectory()) {
+				files.add(library);
+				continue;
+			}
+			final File[] contents = library.listFiles();
+			if (contents == null) {
+				continue;
+			}
+			Arrays.sort(contents);
+			for (final File file : contents) {
+				final String name = file.getName().toLowerCase();
+				if (file.isFile() && (name.endsWith(".jar") || name.endsWith(".jmod"))) {
+					files.add(file);
+				}
+			}
+		}
+		return files;
+	}
+
 	private void prepareSignatures(
 	                               final Map<String, ByteClass> byteClasses,
 	                               final Multimap<String, String> rdepends,
 	                               final BiMap<String, String> nameMaps,
-	                               final BiMap<Signature, Signature> signatureMaps
+	                               final BiMap<Signature, Signature> signatureMaps,
+	                               final OverrideGroups overrides
 	                               ) {
 		for (final ByteClass clazz : byteClasses.values()) {
 			if (missingAction == Missing.VERBOSE) {
@@ -362,12 +851,93 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 					for (final String rdepend : reverseDependencies) {
 						final Signature newSignature = signature.forClassName(rdepend);
 						signatureMaps.put(newSignature, newSignature);
+						overrides.union(newSignature, signature);
 					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Conflicts are collected rather than thrown, such that every conflict
+	 * in the mappings is reported by a single run.
+	 */
+	private void reportConflicts(final List<String> conflicts) {
+		for (final String conflict : conflicts) {
+			getLog().error(conflict);
+		}
+	}
+
+	/**
+	 * Assigns every class to a shard, such that each class hierarchy shares
+	 * a shard, and the shards are roughly balanced by member count.
+	 */
+	private Map<String, Integer> processShards(
+	                                           final Map<String, ByteClass> byteClasses,
+	                                           final Multimap<String, String> depends,
+	                                           final int shardCount
+	                                           ) {
+		final Map<String, String> roots = newHashMap();
+		for (final Map.Entry<String, String> dependency : depends.entries()) {
+			final String root = findRoot(roots, dependency.getKey());
+			final String dependencyRoot = findRoot(roots, dependency.getValue());
+			if (!root.equals(dependencyRoot)) {
+				roots.put(root, dependencyRoot);
+			}
+		}
+
+		final Map<String, List<String>> hierarchies = newLinkedHashMap();
+		final Map<String, Integer> weights = newHashMap();
+		for (final Map.Entry<String, ByteClass> entry : byteClasses.entrySet()) {
+			final String root = findRoot(roots, entry.getKey());
+			List<String> hierarchy = hierarchies.get(root);
+			if (hierarchy == null) {
+				hierarchies.put(root, hierarchy = newArrayList());
+				weights.put(root, 0);
+			}
+			hierarchy.add(entry.getKey());
+			weights.put(root, weights.get(root) + entry.getValue().getLocalSignatures().size() + 1);
+		}
+
+		final List<String> heaviest = newArrayList(hierarchies.keySet());
+		Collections.sort(heaviest, new Comparator<String>()
+			{
+				@Override
+				public int compare(final String o1, final String o2) {
+					return weights.get(o2) - weights.get(o1);
+				}
+			});
+
+		final int[] loads = new int[Math.min(shardCount, Math.max(1, heaviest.size()))];
+		final Map<String, Integer> shards = newHashMap();
+		for (final String root : heaviest) {
+			int lightest = 0;
+			for (int i = 1; i < loads.length; i++) {
+				if (loads[i] < loads[lightest]) {
+					lightest = i;
+				}
+			}
+			loads[lightest] += weights.get(root);
+			for (final String name : hierarchies.get(root)) {
+				shards.put(name, lightest);
+			}
+		}
+		return shards;
+	}
+
+	private static String findRoot(final Map<String, String> roots, final String name) {
+		String root = name;
+		String parent;
+		while ((parent = roots.get(root)) != null) {
+			root = parent;
+		}
+		// Point the whole path at the root, or chains make this quadratic
+		for (String current = name; !current.equals(root); current = parent) {
+			parent = roots.put(current, root);
+		}
+		return root;
+	}
+
 	private Multimap<String, String> processDepends(
 	                                                final Map<String, ByteClass> byteClasses
 	                                                ) {
@@ -413,7 +983,8 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 	private void readClasses(
 	                         final MultiProcessor executor,
 	                         final Map<String, ByteClass> byteClasses,
-	                         final List<Pair<ZipEntry, byte[]>> fileEntries
+	                         final List<Pair<ZipEntry, byte[]>> fileEntries,
+	                         final ClassIndex index
 	                         ) throws
 	                         ZipException,
 	                         IOException,
@@ -425,29 +996,38 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 		final List<Future<Pair<ZipEntry, byte[]>>> fileBuffer = newArrayList();
 
 		final ZipFile zipInput = new ZipFile(input);
+		final Progress.Counter counter = progress.start("readClasses", "entries", zipInput.size());
 		final Enumeration<? extends ZipEntry> zipEntries = zipInput.entries();
 		while (zipEntries.hasMoreElements()) {
 			final ZipEntry zipEntry = zipEntries.nextElement();
 			if (ByteClass.isClass(zipEntry.getName())) {
 				classBuffer.add(executor.submit(
+					tracer == null ? null : "read " + zipEntry.getName(),
 					new Callable<ByteClass>()
 						{
 							@Override
 							public ByteClass call() throws Exception {
-								return new ByteClass(zipEntry.getName(), zipInput.getInputStream(zipEntry));
+								final ByteClass clazz = index == null
+									? new ByteClass(zipEntry.getName(), zipInput.getInputStream(zipEntry))
+									: index.read(zipEntry, zipInput.getInputStream(zipEntry));
+								counter.increment();
+								return clazz;
 							}
 						}
 					));
 			} else {
 				fileBuffer.add(executor.submit(
+					tracer == null ? null : "read " + zipEntry.getName(),
 					new Callable<Pair<ZipEntry, byte[]>>()
 						{
 							@Override
 							public Pair<ZipEntry, byte[]> call() throws Exception {
-								return new ImmutablePair<ZipEntry, byte[]>(
+								final Pair<ZipEntry, byte[]> file = new ImmutablePair<ZipEntry, byte[]>(
 									new ZipEntry(zipEntry),
 									ByteStreams.toByteArray(zipInput.getInputStream(zipEntry))
 									);
+								counter.increment();
+								return file;
 							}
 						}
 					));
@@ -469,6 +1049,7 @@ public class OverMapped extends AbstractMojo implements UncaughtExceptionHandler
 		}
 
 		zipInput.close();
+		counter.stop();
 	}
 
 	private void reorderEntries(
@@ -0,0 +1,200 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.TreeMultimap;
+import com.wolvereness.overmapped.asm.Signature;
+import com.wolvereness.overmapped.lib.MultiProcessor;
+
+/**
+ * Groups the method signatures that must share a name, being joined by
+ * inheritance from a common ancestor method. Groups are found with
+ * union-find as the signatures are prepared, and are read-only after
+ * {@link #build()}. Signatures without any other in their group are not
+ * stored.
+ */
+final class OverrideGroups {
+	private static final int CHUNK_SIZE = 1 << 12;
+
+	private Map<Signature, Integer> ids = newHashMap();
+	private List<Signature> signatures = newArrayList();
+	private int[] parents = new int[16];
+	private Map<Signature, List<Signature>> groups;
+	private List<List<Signature>> groupList;
+
+	/**
+	 * Joins the groups of an inherited signature and the signature it is
+	 * inherited from.
+	 */
+	void union(final Signature signature, final Signature inherited) {
+		final int root = find(id(signature));
+		final int inheritedRoot = find(id(inherited));
+		if (root != inheritedRoot) {
+			parents[root] = inheritedRoot;
+		}
+	}
+
+	private int id(final Signature signature) {
+		final Integer id = ids.get(signature);
+		if (id != null)
+			return id;
+		final int newId = signatures.size();
+		if (newId == parents.length) {
+			parents = Arrays.copyOf(parents, newId * 2);
+		}
+		parents[newId] = newId;
+		ids.put(signature, newId);
+		signatures.add(signature);
+		return newId;
+	}
+
+	private int find(int id) {
+		final int[] parents = this.parents;
+		while (parents[id] != id) {
+			id = parents[id] = parents[parents[id]];
+		}
+		return id;
+	}
+
+	/**
+	 * Collects every group, discarding the union-find state.
+	 */
+	void build() {
+		final Map<Integer, ImmutableList.Builder<Signature>> builders = newHashMap();
+		for (int id = 0; id < signatures.size(); id++) {
+			final int root = find(id);
+			ImmutableList.Builder<Signature> builder = builders.get(root);
+			if (builder == null) {
+				builders.put(root, builder = ImmutableList.builder());
+			}
+			builder.add(signatures.get(id));
+		}
+
+		final Map<Signature, List<Signature>> groups = newHashMapWithExpectedSize(signatures.size());
+		final List<List<Signature>> groupList = newArrayListWithCapacity(builders.size());
+		for (int id = 0; id < signatures.size(); id++) {
+			final ImmutableList.Builder<Signature> builder = builders.remove(find(id));
+			if (builder == null) {
+				continue;
+			}
+			final List<Signature> group = builder.build();
+			for (final Signature signature : group) {
+				groups.put(signature, group);
+			}
+			groupList.add(group);
+		}
+
+		this.groups = groups;
+		this.groupList = groupList;
+		this.ids = null;
+		this.signatures = null;
+		this.parents = null;
+	}
+
+	/**
+	 * @return every group of more than one signature
+	 */
+	List<List<Signature>> getGroups() {
+		return groupList;
+	}
+
+	/**
+	 * @param signature an original signature
+	 * @return every original signature sharing a group with the specified
+	 *     signature, including itself
+	 */
+	List<Signature> getGroup(final Signature signature) {
+		final List<Signature> group = groups.get(signature);
+		return group != null ? group : ImmutableList.of(signature);
+	}
+
+	/**
+	 * @return a sorted message for every group whose signatures are no
+	 *     longer mapped to a single name
+	 */
+	List<String> findInconsistencies(
+	                                 final MultiProcessor executor,
+	                                 final Map<Signature, Signature> signatureMaps,
+	                                 final Map<String, String> nameMaps
+	                                 ) throws
+	                                 InterruptedException,
+	                                 ExecutionException
+	                                 {
+		final List<Future<List<String>>> chunks = newArrayList();
+		int start = 0;
+		int size = 0;
+		for (int i = 0; i < groupList.size(); i++) {
+			size += groupList.get(i).size();
+			if (size >= CHUNK_SIZE || i == groupList.size() - 1) {
+				final List<List<Signature>> chunk = groupList.subList(start, i + 1);
+				chunks.add(executor.submit("findParents", new Callable<List<String>>()
+					{
+						@Override
+						public List<String> call() throws Exception {
+							return findInconsistencies(chunk, signatureMaps, nameMaps);
+						}
+					}));
+				start = i + 1;
+				size = 0;
+			}
+		}
+
+		final List<String> messages = newArrayList();
+		for (final Future<List<String>> chunk : chunks) {
+			messages.addAll(chunk.get());
+		}
+		Collections.sort(messages);
+		return messages;
+	}
+
+	private static List<String> findInconsistencies(
+	                                                final List<List<Signature>> groups,
+	                                                final Map<Signature, Signature> signatureMaps,
+	                                                final Map<String, String> nameMaps
+	                                                ) {
+		final List<String> messages = newArrayList();
+		final Multimap<String, String> names = TreeMultimap.create();
+		for (final List<Signature> group : groups) {
+			for (final Signature signature : group) {
+				names.put(signatureMaps.get(signature).getElementName(), nameMaps.get(signature.getClassName()));
+			}
+			if (names.keySet().size() > 1) {
+				final Signature signature = group.get(0);
+				messages.add(String.format(
+					"Methods overriding `%s' are mapped to different names %s",
+					signature.getElementName() + ' ' + signature.getDescriptor(),
+					names.asMap()
+					));
+			}
+			names.clear();
+		}
+		return messages;
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import static com.google.common.collect.Lists.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.google.common.io.Files;
+import com.wolvereness.overmapped.asm.ByteClass;
+
+/**
+ * Records the wall and CPU time of each phase of a run. Phases run by the
+ * calling thread count the CPU time of that thread and of the processor
+ * threads, as work is shared with them; phases run as a single task only
+ * count the CPU time of their own thread. A thread exiting during a phase
+ * drops out of it.
+ */
+final class PhaseTimings {
+	final class Timer {
+		private final String name;
+		private final int layer;
+		private final long[] ids;
+		private final long[] cpuStarts;
+		private final long wallStart;
+
+		Timer(final String name, final int layer, final boolean allThreads) {
+			this.name = name;
+			this.layer = layer;
+			this.ids = getThreadIds(allThreads);
+			this.cpuStarts = getCpuTimes(ids);
+			this.wallStart = System.nanoTime();
+		}
+
+		/**
+		 * @param items the number of classes or entries processed by the phase
+		 */
+		void stop(final int items) {
+			final long wall = System.nanoTime() - wallStart;
+			final long cpu = getCpuTime(ids, cpuStarts);
+			synchronized (phases) {
+				phases.add(new Phase(name, layer, wall, cpu, items));
+			}
+		}
+	}
+
+	private static final class Phase {
+		final String name;
+		final int layer;
+		final long wall;
+		final long cpu;
+		final int items;
+
+		Phase(
+		      final String name,
+		      final int layer,
+		      final long wall,
+		      final long cpu,
+		      final int items
+		      ) {
+			this.name = name;
+			this.layer = layer;
+			this.wall = wall;
+			this.cpu = cpu;
+			this.items = items;
+		}
+
+		double getRate() {
+			return wall == 0 ? 0 : items * (double) TimeUnit.SECONDS.toNanos(1) / wall;
+		}
+	}
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private final List<Phase> phases = newArrayList();
+	private volatile long[] processorIds = new long[0];
+
+	/**
+	 * Starts timing a phase run by the calling thread.
+	 */
+	Timer start(final String name) {
+		return new Timer(name, 0, true);
+	}
+
+	/**
+	 * Starts timing a phase of the specified layer, counting from 1.
+	 */
+	Timer start(final String name, final int layer) {
+		return new Timer(name, layer, true);
+	}
+
+	/**
+	 * Starts timing a phase run as a single task.
+	 */
+	Timer startTask(final String name) {
+		return new Timer(name, 0, false);
+	}
+
+	/**
+	 * Sets the threads of the processor, counted by every later phase run
+	 * by the calling thread.
+	 */
+	void setProcessorThreads(final Collection<Thread> processorThreads) {
+		final long[] ids = new long[processorThreads.size()];
+		int i = 0;
+		for (final Thread thread : processorThreads) {
+			ids[i++] = thread.getId();
+		}
+		this.processorIds = ids;
+	}
+
+	private long[] getThreadIds(final boolean allThreads) {
+		final long current = Thread.currentThread().getId();
+		if (!allThreads)
+			return new long[] { current };
+		final long[] processorIds = this.processorIds;
+		final long[] ids = new long[processorIds.length + 1];
+		ids[0] = current;
+		System.arraycopy(processorIds, 0, ids, 1, processorIds.length);
+		return ids;
+	}
+
+	/**
+	 * @return the CPU time of each thread, -1 for threads that are not
+	 *     alive, or null when CPU time is not measured
+	 */
+	private long[] getCpuTimes(final long[] ids) {
+		if (!threads.isThreadCpuTimeSupported() || !threads.isThreadCpuTimeEnabled())
+			return null;
+		final long[] times = new long[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			times[i] = threads.getThreadCpuTime(ids[i]);
+		}
+		return times;
+	}
+
+	/**
+	 * @return the CPU time used since the start times by the threads alive
+	 *     at both ends, or -1 when CPU time is not measured
+	 */
+	private long getCpuTime(final long[] ids, final long[] starts) {
+		final long[] ends;
+		if (starts == null || (ends = getCpuTimes(ids)) == null)
+			return -1;
+		long time = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (starts[i] != -1 && ends[i] != -1) {
+				time += ends[i] - starts[i];
+			}
+		}
+		return time;
+	}
+
+	void log(final Log log) {
+		synchronized (phases) {
+			log.info("Phase timings:");
+			for (final Phase phase : phases) {
+				log.info(String.format(
+					"%-24s %8d ms wall %8s ms cpu %8d items %10.1f items/s",
+					phase.layer == 0 ? phase.name : phase.name + " (" + phase.layer + ')',
+					TimeUnit.NANOSECONDS.toMillis(phase.wall),
+					phase.cpu == -1 ? "?" : Long.toString(TimeUnit.NANOSECONDS.toMillis(phase.cpu)),
+					phase.items,
+					phase.getRate()
+					));
+			}
+		}
+	}
+
+	/**
+	 * Logs the classes that took the longest to read and write, as recorded
+	 * by each class.
+	 */
+	void logSlowestClasses(final Log log, final Collection<ByteClass> classes, final int limit) {
+		final List<ByteClass> slowest = newArrayList(classes);
+		Collections.sort(slowest, new Comparator<ByteClass>()
+			{
+				@Override
+				public int compare(final ByteClass o1, final ByteClass o2) {
+					final long time1 = getClassNanos(o1);
+					final long time2 = getClassNanos(o2);
+					return time1 < time2 ? 1 : time1 == time2 ? 0 : -1;
+				}
+			});
+		log.info(String.format(
+			"Slowest %d class(es):",
+			Math.min(limit, slowest.size())
+			));
+		for (final ByteClass clazz : slowest.subList(0, Math.min(limit, slowest.size()))) {
+			log.info(String.format(
+				"%-40s %8.2f ms read %8s ms write %8d bytes %5d methods [%s]",
+				clazz.getToken(),
+				clazz.getReadNanos() / 1e6,
+				clazz.getWriteNanos() == -1 ? "?" : String.format("%.2f", clazz.getWriteNanos() / 1e6),
+				clazz.getSize(),
+				clazz.getMethodCount(),
+				clazz.getVisitors() == null ? "" : clazz.getVisitors()
+				));
+		}
+	}
+
+	private static long getClassNanos(final ByteClass clazz) {
+		return clazz.getReadNanos() + Math.max(0, clazz.getWriteNanos());
+	}
+
+	/**
+	 * Writes every phase as a line of comma separated values, with times in
+	 * nanoseconds.
+	 */
+	void write(final File file) throws IOException {
+		final Writer writer = Files.newWriter(file, Charset.forName("UTF8"));
+		try {
+			writer.write("phase,layer,wallNanos,cpuNanos,items,itemsPerSecond\n");
+			synchronized (phases) {
+				for (final Phase phase : phases) {
+					writer.write(String.format(
+						Locale.ROOT,
+						"%s,%d,%d,%d,%d,%.1f\n",
+						phase.name,
+						phase.layer,
+						phase.wall,
+						phase.cpu,
+						phase.items,
+						phase.getRate()
+						));
+				}
+			}
+		} finally {
+			writer.close();
+		}
+	}
+}
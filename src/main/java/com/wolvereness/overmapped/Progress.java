@@ -0,0 +1,126 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Periodically logs how far the current phase has come. Work is counted
+ * with an atomic counter, and only read by the reporting thread.
+ */
+final class Progress {
+	final class Counter {
+		private final String name;
+		private final String unit;
+		private final int total;
+		private final AtomicInteger done = new AtomicInteger();
+		private final long start = System.nanoTime();
+		private long lastTime = start;
+		private int lastDone;
+
+		Counter(final String name, final String unit, final int total) {
+			this.name = name;
+			this.unit = unit;
+			this.total = total;
+		}
+
+		void increment() {
+			done.incrementAndGet();
+		}
+
+		void stop() {
+			if (current == this) {
+				current = null;
+			}
+		}
+
+		void report() {
+			final long now = System.nanoTime();
+			final int done = this.done.get();
+			final double rate = rate(done - lastDone, now - lastTime);
+			lastTime = now;
+			lastDone = done;
+			final double averageRate = rate(done, now - start);
+			final double etaRate = rate != 0 ? rate : averageRate;
+			log.info(String.format(
+				"%s: %d/%d %s (%d%%), %.1f %s/s, ETA %s",
+				name,
+				done,
+				total,
+				unit,
+				total == 0 ? 100 : done * 100L / total,
+				rate,
+				unit,
+				etaRate == 0 ? "?" : (long) Math.ceil((total - done) / etaRate) + " s"
+				));
+		}
+	}
+
+	private final Log log;
+	private final Timer timer;
+	private volatile Counter current;
+
+	/**
+	 * @param interval the seconds between each line, or 0 to never log
+	 */
+	Progress(final Log log, final int interval) {
+		this.log = log;
+		if (interval <= 0) {
+			timer = null;
+			return;
+		}
+		timer = new Timer("OverMapped progress", true);
+		final long period = TimeUnit.SECONDS.toMillis(interval);
+		timer.schedule(
+			new TimerTask()
+				{
+					@Override
+					public void run() {
+						final Counter current = Progress.this.current;
+						if (current != null) {
+							current.report();
+						}
+					}
+				},
+			period,
+			period
+			);
+	}
+
+	/**
+	 * Starts counting a phase, replacing the last phase started.
+	 */
+	Counter start(final String name, final String unit, final int total) {
+		return current = new Counter(name, unit, total);
+	}
+
+	void shutdown() {
+		current = null;
+		if (timer != null) {
+			timer.cancel();
+		}
+	}
+
+	private static double rate(final int items, final long nanos) {
+		return nanos == 0 ? 0 : items * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+	}
+}
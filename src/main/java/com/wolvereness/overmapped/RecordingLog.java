@@ -0,0 +1,203 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import static com.google.common.collect.Lists.*;
+
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A log that holds messages to be written to another log later, such that
+ * messages from concurrent work may be written in a deterministic order.
+ */
+final class RecordingLog implements Log {
+	private enum Level {
+		DEBUG,
+		INFO,
+		WARN,
+		ERROR,
+		;
+	}
+
+	private static final class Record {
+		final Level level;
+		final CharSequence content;
+		final Throwable error;
+
+		Record(final Level level, final CharSequence content, final Throwable error) {
+			this.level = level;
+			this.content = content;
+			this.error = error;
+		}
+	}
+
+	private final Log log;
+	private List<Record> records;
+
+	/**
+	 * @param log the log to later replay into, used to determine enabled levels
+	 */
+	RecordingLog(final Log log) {
+		this.log = log;
+	}
+
+	private void record(final Level level, final CharSequence content, final Throwable error) {
+		List<Record> records = this.records;
+		if (records == null) {
+			records = this.records = newArrayList();
+		}
+		records.add(new Record(level, content, error));
+	}
+
+	/**
+	 * Writes, and forgets, every message recorded thus far.
+	 */
+	void replay() {
+		final List<Record> records = this.records;
+		if (records == null)
+			return;
+		this.records = null;
+
+		final Log log = this.log;
+		for (final Record record : records) {
+			final CharSequence content = record.content;
+			final Throwable error = record.error;
+			switch (record.level) {
+				case DEBUG:
+					if (error == null) {
+						log.debug(content);
+					} else if (content == null) {
+						log.debug(error);
+					} else {
+						log.debug(content, error);
+					}
+					break;
+				case INFO:
+					if (error == null) {
+						log.info(content);
+					} else if (content == null) {
+						log.info(error);
+					} else {
+						log.info(content, error);
+					}
+					break;
+				case WARN:
+					if (error == null) {
+						log.warn(content);
+					} else if (content == null) {
+						log.warn(error);
+					} else {
+						log.warn(content, error);
+					}
+					break;
+				case ERROR:
+					if (error == null) {
+						log.error(content);
+					} else if (content == null) {
+						log.error(error);
+					} else {
+						log.error(content, error);
+					}
+					break;
+				default:
+					throw new AssertionError("Unexpected level: " + record.level);
+			}
+		}
+	}
+
+	@Override
+	public boolean isDebugEnabled() {
+		return log.isDebugEnabled();
+	}
+
+	@Override
+	public void debug(final CharSequence content) {
+		record(Level.DEBUG, content, null);
+	}
+
+	@Override
+	public void debug(final CharSequence content, final Throwable error) {
+		record(Level.DEBUG, content, error);
+	}
+
+	@Override
+	public void debug(final Throwable error) {
+		record(Level.DEBUG, null, error);
+	}
+
+	@Override
+	public boolean isInfoEnabled() {
+		return log.isInfoEnabled();
+	}
+
+	@Override
+	public void info(final CharSequence content) {
+		record(Level.INFO, content, null);
+	}
+
+	@Override
+	public void info(final CharSequence content, final Throwable error) {
+		record(Level.INFO, content, error);
+	}
+
+	@Override
+	public void info(final Throwable error) {
+		record(Level.INFO, null, error);
+	}
+
+	@Override
+	public boolean isWarnEnabled() {
+		return log.isWarnEnabled();
+	}
+
+	@Override
+	public void warn(final CharSequence content) {
+		record(Level.WARN, content, null);
+	}
+
+	@Override
+	public void warn(final CharSequence content, final Throwable error) {
+		record(Level.WARN, content, error);
+	}
+
+	@Override
+	public void warn(final Throwable error) {
+		record(Level.WARN, null, error);
+	}
+
+	@Override
+	public boolean isErrorEnabled() {
+		return log.isErrorEnabled();
+	}
+
+	@Override
+	public void error(final CharSequence content) {
+		record(Level.ERROR, content, null);
+	}
+
+	@Override
+	public void error(final CharSequence content, final Throwable error) {
+		record(Level.ERROR, content, error);
+	}
+
+	@Override
+	public void error(final Throwable error) {
+		record(Level.ERROR, null, error);
+	}
+}
@@ -16,9 +16,11 @@
  */
 package com.wolvereness.overmapped;
 
+import static com.google.common.collect.Lists.*;
 import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
 
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -30,8 +32,11 @@ import org.objectweb.asm.commons.Remapper;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.Multimap;
 import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.FlagTable;
+import com.wolvereness.overmapped.asm.MemberRules;
 import com.wolvereness.overmapped.asm.Signature;
 import com.wolvereness.overmapped.asm.Signature.MutableSignature;
+import com.wolvereness.overmapped.lib.MultiProcessor;
 
 class RegexSubRoutine extends SubRoutine {
 
@@ -42,9 +47,11 @@ class RegexSubRoutine extends SubRoutine {
 	@Override
 	public void invoke(
 	                   final OverMapped instance,
+	                   final MultiProcessor executor,
 	                   final Map<String, ByteClass> classes,
 	                   final Multimap<String, String> depends,
 	                   final Multimap<String, String> rdepends,
+	                   final Map<String, Integer> shards,
 	                   final BiMap<String, String> nameMaps,
 	                   final BiMap<String, String> inverseNameMaps,
 	                   final BiMap<Signature, Signature> signatureMaps,
@@ -53,6 +60,9 @@ class RegexSubRoutine extends SubRoutine {
 	                   final MutableSignature signature,
 	                   final Set<String> searchCache,
 	                   final Map<Signature, Integer> flags,
+	                   final List<MemberRules.Rule> memberRules,
+	                   final List<FlagTable.Rule> flagRules,
+	                   final List<String> conflicts,
 	                   final Map<?,?> map
 	                   ) throws
 	                   ClassCastException,
@@ -64,6 +74,7 @@ class RegexSubRoutine extends SubRoutine {
 			return;
 
 		final Map<String, String> regexNameMaps = newHashMap();
+		final Map<String, String> occupants = newHashMap();
 		for (final Map.Entry<?, ?> regexMap : ((Map<?,?>) regexMaps).entrySet()) {
 			{
 				final Pattern regex; {
@@ -97,34 +108,85 @@ class RegexSubRoutine extends SubRoutine {
 					String.class
 					);
 
-				for (final Iterator<Map.Entry<String, String>> it = nameMaps.entrySet().iterator(); it.hasNext(); ) {
-					final Map.Entry<String, String> classMap = it.next();
+				for (final Map.Entry<String, String> classMap : nameMaps.entrySet()) {
 					final String oldName = classMap.getValue();
 					final String newName = regex.matcher(oldName).replaceAll(replacement);
 					if (!oldName.equals(newName)) {
 						regexNameMaps.put(classMap.getKey(), newName);
-						it.remove(); // Insert them back later; this is to prevent class name-switching state issues
 					}
 				}
 			}
 
-			for (final Map.Entry<String, String> regexNameMap : regexNameMaps.entrySet()) {
-				try {
-					nameMaps.put(regexNameMap.getKey(), regexNameMap.getValue());
-				} catch (final IllegalArgumentException ex) {
-					final MojoFailureException exception = new MojoFailureException(String.format(
-						"Failed to parse regex entry `%s' in `%s';  failed to insert `%s' into name maps for `%s'",
-						regexMap,
-						regexMaps,
-						regexNameMap,
-						regexNameMaps
-						));
-					exception.initCause(ex);
-					throw exception;
-				}
+			removeConflicts(nameMaps, regexNameMaps, occupants, conflicts, regexMap);
+
+			for (final String className : regexNameMaps.keySet()) {
+				nameMaps.remove(className); // Insert them back later; this is to prevent class name-switching state issues
+			}
+			nameMaps.putAll(regexNameMaps);
+			if (!regexNameMaps.isEmpty()) {
+				instance.suggestions.invalidate();
 			}
 
 			regexNameMaps.clear();
 		}
 	}
+
+	/**
+	 * Drops every rename that would give two classes the same name, until
+	 * the remaining renames can all be applied at once. Each sweep indexes
+	 * every name before any rename is dropped, such that a conflict is only
+	 * reported against a class that would take the name.
+	 */
+	private static void removeConflicts(
+	                                    final Map<String, String> nameMaps,
+	                                    final Map<String, String> regexNameMaps,
+	                                    final Map<String, String> occupants,
+	                                    final List<String> conflicts,
+	                                    final Map.Entry<?, ?> regexMap
+	                                    ) {
+		final Set<String> taken = newHashSet();
+		final List<String> dropped = newArrayList();
+		boolean conflicted;
+		do {
+			for (final Map.Entry<String, String> classMap : nameMaps.entrySet()) {
+				final String className = classMap.getKey();
+				final String newName = regexNameMaps.containsKey(className) ? regexNameMaps.get(className) : classMap.getValue();
+				final String occupant = occupants.put(newName, className);
+				if (occupant != null) {
+					// The first class keeps the name in the index
+					occupants.put(newName, occupant);
+					taken.add(newName);
+				}
+			}
+
+			for (final Map.Entry<String, String> classMap : nameMaps.entrySet()) {
+				final String className = classMap.getKey();
+				final String newName = regexNameMaps.containsKey(className) ? regexNameMaps.get(className) : classMap.getValue();
+				if (!taken.contains(newName)) {
+					continue;
+				}
+				final String occupant = occupants.get(newName);
+				if (occupant.equals(className)) {
+					continue;
+				}
+				conflicts.add(String.format(
+					"Cannot map `%s' by regex entry `%s' to `%s'; it would also be the name of `%s'",
+					nameMaps.get(regexNameMaps.containsKey(className) ? className : occupant),
+					regexMap,
+					newName,
+					nameMaps.get(regexNameMaps.containsKey(className) ? occupant : className)
+					));
+				dropped.add(className);
+				dropped.add(occupant);
+			}
+
+			for (final String className : dropped) {
+				regexNameMaps.remove(className);
+			}
+			conflicted = !dropped.isEmpty();
+			dropped.clear();
+			occupants.clear();
+			taken.clear();
+		} while (conflicted);
+	}
 }
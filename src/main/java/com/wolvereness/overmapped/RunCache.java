@@ -0,0 +1,192 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.security.CodeSource;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.wolvereness.overmapped.asm.CacheFiles;
+
+/**
+ * Keeps the outputs of whole runs in a content addressed store. A run is
+ * identified by a fingerprint of everything its outputs depend on; each
+ * output is stored once under the hash of its content, and the fingerprint
+ * names the hashes and lengths of the outputs of that run.
+ */
+final class RunCache {
+	private static final int FORMAT = 2;
+	private static final HashFunction HASH = Hashing.sha1();
+	private static final Charset UTF8 = Charset.forName("UTF8");
+	private static final String OUTPUT = "output";
+	private static final String MISSING_REPORT = "missingReport";
+
+	private final File runs;
+	private final File objects;
+	private final Hasher fingerprint = HASH.newHasher().putInt(FORMAT);
+
+	RunCache(final File directory) {
+		this.runs = new File(directory, "runs");
+		this.objects = new File(directory, "objects");
+	}
+
+	RunCache putFile(final File file) throws IOException {
+		fingerprint.putBytes(Files.hash(file, HASH).asBytes());
+		return this;
+	}
+
+	RunCache putString(final String string) {
+		fingerprint.putString(String.valueOf(string), UTF8).putByte((byte) 0);
+		return this;
+	}
+
+	RunCache putBoolean(final boolean value) {
+		fingerprint.putBoolean(value);
+		return this;
+	}
+
+	/**
+	 * Adds the jar of this plugin, such that a rebuilt plugin never reuses
+	 * the outputs of another build of the same version.
+	 */
+	RunCache putPlugin() throws IOException {
+		final File plugin = getPlugin();
+		if (plugin != null)
+			return putFile(plugin);
+		return putString(OverMapped.class.getPackage().getImplementationVersion());
+	}
+
+	/**
+	 * @return the hash of the jar of this plugin, or its version if it was
+	 *     not loaded from a jar
+	 */
+	static String hashPlugin() throws IOException {
+		final File plugin = getPlugin();
+		if (plugin != null)
+			return Files.hash(plugin, HASH).toString();
+		return String.valueOf(OverMapped.class.getPackage().getImplementationVersion());
+	}
+
+	private static File getPlugin() {
+		final CodeSource source = OverMapped.class.getProtectionDomain().getCodeSource();
+		File plugin = null;
+		if (source != null) {
+			try {
+				plugin = new File(source.getLocation().toURI());
+			} catch (final URISyntaxException ex) {
+			} catch (final IllegalArgumentException ex) {
+			}
+		}
+		return plugin != null && plugin.isFile() ? plugin : null;
+	}
+
+	String getFingerprint() {
+		return fingerprint.hash().toString();
+	}
+
+	/**
+	 * Copies the outputs of the run with the fingerprint to their files.
+	 *
+	 * @param missingReport the file to restore the report of missing mappings
+	 *     to, or null if not written
+	 * @return false if no run has the fingerprint, or its outputs are gone
+	 */
+	boolean restore(final String fingerprint, final File output, final File missingReport) throws IOException {
+		final File run = new File(runs, fingerprint);
+		if (!run.isFile())
+			return false;
+
+		File outputObject = null;
+		File missingReportObject = null;
+		for (final String line : Files.readLines(run, UTF8)) {
+			// Objects are named by their hash, so only their length is checked
+			final String[] parts = line.split(" ");
+			if (parts.length != 3 || parts[1].length() <= 2)
+				return false;
+			final long length;
+			try {
+				length = Long.parseLong(parts[2]);
+			} catch (final NumberFormatException ex) {
+				return false;
+			}
+			final File object = getObject(parts[1]);
+			if (!object.isFile() || object.length() != length)
+				return false;
+			if (parts[0].equals(OUTPUT)) {
+				outputObject = object;
+			} else if (parts[0].equals(MISSING_REPORT)) {
+				missingReportObject = object;
+			}
+		}
+		if (outputObject == null || (missingReport != null && missingReportObject == null))
+			return false;
+
+		Files.copy(outputObject, output);
+		if (missingReport != null) {
+			Files.copy(missingReportObject, missingReport);
+		}
+		return true;
+	}
+
+	/**
+	 * Records the outputs of a successful run under the fingerprint.
+	 */
+	void store(final String fingerprint, final File output, final File missingReport) throws IOException {
+		final StringBuilder run = new StringBuilder();
+		run.append(OUTPUT).append(' ').append(storeObject(output)).append(' ').append(output.length()).append('\n');
+		if (missingReport != null) {
+			run.append(MISSING_REPORT).append(' ').append(storeObject(missingReport)).append(' ').append(missingReport.length()).append('\n');
+		}
+
+		final byte[] bytes = run.toString().getBytes(UTF8);
+		CacheFiles.write(new File(runs, fingerprint), new CacheFiles.Writer()
+			{
+				@Override
+				public void write(final DataOutputStream out) throws IOException {
+					out.write(bytes);
+				}
+			});
+	}
+
+	private String storeObject(final File file) throws IOException {
+		final HashCode hash = Files.hash(file, HASH);
+		final File object = getObject(hash.toString());
+		if (object.isFile() && object.length() == file.length())
+			return hash.toString();
+
+		CacheFiles.write(object, new CacheFiles.Writer()
+			{
+				@Override
+				public void write(final DataOutputStream out) throws IOException {
+					Files.copy(file, out);
+				}
+			});
+		return hash.toString();
+	}
+
+	private File getObject(final String hash) {
+		return new File(new File(objects, hash.substring(0, 2)), hash.substring(2));
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import static com.google.common.collect.Maps.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.yaml.snakeyaml.Yaml;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.wolvereness.overmapped.asm.ClassIndex;
+import com.wolvereness.overmapped.asm.LibraryIndex;
+import com.wolvereness.overmapped.lib.MultiProcessor;
+
+/**
+ * State shared by every execution in the JVM that asks for it: one
+ * processor per core count, the parsed maps by the hash of their file, the
+ * class headers of jars by their path, modification time, and length, and
+ * the classes of libraries by their hash. Each cache is bounded to an
+ * eighth of the maximum heap, by estimated retained size. Parsed maps are
+ * shared between executions, and must never be modified.
+ */
+final class SharedEngine {
+	private static final long MAXIMUM_WEIGHT = Runtime.getRuntime().maxMemory() / 8;
+	private static final Charset UTF8 = Charset.forName("UTF8");
+
+	private static final Map<Integer, MultiProcessor> processors = newHashMap();
+	/**
+	 * Tasks fail by their futures, so only the processor itself can kill a
+	 * thread; it is then replaced for later executions, instead of every one
+	 * of them running with fewer threads.
+	 */
+	private static final UncaughtExceptionHandler REPLACE_PROCESSOR = new UncaughtExceptionHandler()
+		{
+			@Override
+			public void uncaughtException(final Thread thread, final Throwable ex) {
+				synchronized (processors) {
+					final Iterator<MultiProcessor> it = processors.values().iterator();
+					while (it.hasNext()) {
+						final MultiProcessor processor = it.next();
+						if (processor.getThreads().contains(thread)) {
+							it.remove();
+							processor.shutdown();
+						}
+					}
+				}
+				thread.getThreadGroup().uncaughtException(thread, ex);
+			}
+		};
+	private static final Cache<String, Object> maps = CacheBuilder.newBuilder()
+		.maximumWeight(MAXIMUM_WEIGHT)
+		.weigher(new Weigher<String, Object>()
+			{
+				@Override
+				public int weigh(final String key, final Object value) {
+					return Ints.saturatedCast(MemoryReport.yaml(value));
+				}
+			})
+		.build();
+	private static final Cache<String, ClassIndex> indexes = CacheBuilder.newBuilder()
+		.maximumWeight(MAXIMUM_WEIGHT)
+		.weigher(new Weigher<String, ClassIndex>()
+			{
+				@Override
+				public int weigh(final String key, final ClassIndex value) {
+					return Ints.saturatedCast(value.getRetainedSize());
+				}
+			})
+		.build();
+	private static final Cache<String, LibraryIndex> libraries = CacheBuilder.newBuilder()
+		.maximumWeight(MAXIMUM_WEIGHT)
+		.weigher(new Weigher<String, LibraryIndex>()
+			{
+				@Override
+				public int weigh(final String key, final LibraryIndex value) {
+					return Ints.saturatedCast(value.getRetainedSize());
+				}
+			})
+		.build();
+
+	private SharedEngine() {
+	}
+
+	/**
+	 * @return a view of the processor for the core count, to shut down when
+	 *     the execution is done
+	 */
+	static MultiProcessor getProcessor(final int cores) {
+		synchronized (processors) {
+			MultiProcessor processor = processors.get(cores);
+			if (processor == null) {
+				processors.put(cores, processor = MultiProcessor.newMultiProcessor(
+					cores - 1,
+					new ThreadFactoryBuilder().setDaemon(true).setNameFormat(OverMapped.class.getName() + "-shared-" + cores + "-%d").setUncaughtExceptionHandler(REPLACE_PROCESSOR).build()
+					));
+			}
+			return processor.newView();
+		}
+	}
+
+	/**
+	 * Two executions loading the same maps at once may both parse them.
+	 *
+	 * @return the parsed maps, which must not be modified
+	 */
+	static Object loadMaps(final File file) throws IOException {
+		final byte[] bytes = Files.toByteArray(file);
+		final String key = Hashing.sha1().hashBytes(bytes).toString();
+		Object yaml = maps.getIfPresent(key);
+		if (yaml == null) {
+			yaml = new Yaml().load(new String(bytes, UTF8));
+			if (yaml != null) {
+				maps.put(key, yaml);
+			}
+		}
+		return yaml;
+	}
+
+	/**
+	 * @param file the file to also keep the index in, or null
+	 * @return an index starting from the last index of the same jar
+	 */
+	static ClassIndex newClassIndex(final File jar, final File file) throws IOException {
+		final ClassIndex previous = indexes.getIfPresent(getKey(jar));
+		return previous == null ? new ClassIndex(file) : new ClassIndex(previous, file);
+	}
+
+	/**
+	 * Keeps an index after reading every class of the jar through it.
+	 */
+	static void putClassIndex(final File jar, final ClassIndex index) throws IOException {
+		indexes.put(getKey(jar), index);
+	}
+
+	/**
+	 * @return the classes of the library with the specified hash, read
+	 *     earlier in this JVM, or else as by {@link LibraryIndex#read(File,
+	 *     String, File)}
+	 */
+	static LibraryIndex readLibrary(final File artifact, final String hash, final File directory) throws IOException {
+		LibraryIndex index = libraries.getIfPresent(hash);
+		if (index == null) {
+			index = LibraryIndex.read(artifact, hash, directory);
+			libraries.put(hash, index);
+		}
+		return index;
+	}
+
+	private static String getKey(final File jar) throws IOException {
+		return jar.getCanonicalPath() + '\n' + jar.lastModified() + '\n' + jar.length();
+	}
+}
@@ -16,8 +16,11 @@
  */
 package com.wolvereness.overmapped;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.maven.plugin.MojoFailureException;
 import org.objectweb.asm.commons.Remapper;
@@ -26,14 +29,19 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
 import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.FlagTable;
+import com.wolvereness.overmapped.asm.MemberRules;
 import com.wolvereness.overmapped.asm.Signature;
+import com.wolvereness.overmapped.lib.MultiProcessor;
 
 abstract class SubRoutine {
 	static final Iterable<SubRoutine> SUB_ROUTINES = ImmutableList.of(
 		new ClassesSubRoutine(),
 		new MembersSubRoutine(),
 		new FlagsSubRoutine(),
-		new RegexSubRoutine()
+		new RegexSubRoutine(),
+		new MemberRulesSubRoutine(),
+		new FlagRulesSubRoutine()
 		);
 
 	final String tag;
@@ -44,9 +52,11 @@ abstract class SubRoutine {
 
 	abstract void invoke(
 	                     final OverMapped instance,
+	                     final MultiProcessor executor,
 	                     final Map<String, ByteClass> classes,
 	                     final Multimap<String, String> depends,
 	                     final Multimap<String, String> rdepends,
+	                     final Map<String, Integer> shards,
 	                     final BiMap<String, String> nameMaps,
 	                     final BiMap<String, String> inverseNameMaps,
 	                     final BiMap<Signature, Signature> signatureMaps,
@@ -55,6 +65,9 @@ abstract class SubRoutine {
 	                     final Signature.MutableSignature signature,
 	                     final Set<String> searchCache,
 	                     final Map<Signature, Integer> flags,
+	                     final List<MemberRules.Rule> memberRules,
+	                     final List<FlagTable.Rule> flagRules,
+	                     final List<String> conflicts,
 	                     final Map<?,?> flagMaps
 	                     ) throws
 	                     ClassCastException,
@@ -128,4 +141,54 @@ abstract class SubRoutine {
 	                            {
 		return getTypeFrom(map, token, acceptNull, String.class);
 	}
+
+	/**
+	 * Splits the key of a rule, being `class name descriptor', with each
+	 * part a regex.
+	 *
+	 * @return the patterns of the class, name, and descriptor
+	 */
+	protected static Pattern[] compileRule(
+	                                       final String qualifiedName,
+	                                       final Map.Entry<?, ?> ruleMap,
+	                                       final Object ruleMaps
+	                                       ) throws
+	                                       MojoFailureException
+	                                       {
+		final int firstSpace = qualifiedName.indexOf(' ');
+		final int finalSpace = qualifiedName.lastIndexOf(' ');
+
+		if (firstSpace == finalSpace || qualifiedName.indexOf(' ', firstSpace + 1) != finalSpace)
+			throw new MojoFailureException(String.format(
+				"Malformed rule %s",
+				qualifiedName
+				));
+
+		return new Pattern[] {
+			compile(qualifiedName.substring(0, firstSpace), ruleMap, ruleMaps),
+			compile(qualifiedName.substring(firstSpace + 1, finalSpace), ruleMap, ruleMaps),
+			compile(qualifiedName.substring(finalSpace + 1), ruleMap, ruleMaps)
+			};
+	}
+
+	private static Pattern compile(
+	                               final String regexString,
+	                               final Map.Entry<?, ?> ruleMap,
+	                               final Object ruleMaps
+	                               ) throws
+	                               MojoFailureException
+	                               {
+		try {
+			return Pattern.compile(regexString, Pattern.DOTALL);
+		} catch (final PatternSyntaxException ex) {
+			final MojoFailureException exception = new MojoFailureException(String.format(
+				"Failed to parse regex `%s' in `%s' of `%s'",
+				regexString,
+				ruleMap,
+				ruleMaps
+				));
+			exception.initCause(ex);
+			throw exception;
+		}
+	}
 }
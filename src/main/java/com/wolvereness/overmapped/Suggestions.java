@@ -0,0 +1,211 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+import com.wolvereness.overmapped.asm.ByteClass;
+import com.wolvereness.overmapped.asm.Signature;
+
+/**
+ * Finds the closest existing names for a missing mapping. Lookups only
+ * consider the classes in the same package or with the same simple name,
+ * and the members of the same class hierarchy. Nothing is computed until
+ * a suggestion is converted to a string.
+ */
+final class Suggestions {
+	private static final int LIMIT = 5;
+
+	private static final class Candidate implements Comparable<Candidate> {
+		final int score;
+		final String name;
+
+		Candidate(final int score, final String name) {
+			this.score = score;
+			this.name = name;
+		}
+
+		@Override
+		public int compareTo(final Candidate o) {
+			return score != o.score ? score - o.score : name.compareTo(o.name);
+		}
+	}
+
+	private final Map<String, ByteClass> classes;
+	private final Multimap<String, String> depends;
+	private final Map<String, String> nameMaps;
+	private final Map<Signature, Signature> signatureMaps;
+	private Map<String, List<String>> packages;
+	private Map<String, List<String>> simpleNames;
+
+	Suggestions(
+	            final Map<String, ByteClass> classes,
+	            final Multimap<String, String> depends,
+	            final Map<String, String> nameMaps,
+	            final Map<Signature, Signature> signatureMaps
+	            ) {
+		this.classes = classes;
+		this.depends = depends;
+		this.nameMaps = nameMaps;
+		this.signatureMaps = signatureMaps;
+	}
+
+	/**
+	 * Updates the class index, if it has been built, for a single rename.
+	 */
+	synchronized void renamed(final String oldName, final String newName) {
+		if (packages == null)
+			return;
+		remove(packages, getPackage(oldName), oldName);
+		remove(simpleNames, getSimpleName(oldName), oldName);
+		add(packages, getPackage(newName), newName);
+		add(simpleNames, getSimpleName(newName), newName);
+	}
+
+	/**
+	 * Drops the class index, to be built again when next needed.
+	 */
+	synchronized void invalidate() {
+		packages = null;
+		simpleNames = null;
+	}
+
+	Object forClass(final String name) {
+		return new Object()
+			{
+				@Override
+				public String toString() {
+					return format(findClasses(name));
+				}
+			};
+	}
+
+	/**
+	 * @param className the original name of the class
+	 * @param description the original description of the member, may be null
+	 */
+	Object forMember(final String className, final String name, final String description) {
+		return new Object()
+			{
+				@Override
+				public String toString() {
+					return format(findMembers(className, name, description));
+				}
+			};
+	}
+
+	private synchronized List<String> findClasses(final String name) {
+		if (packages == null) {
+			packages = newHashMap();
+			simpleNames = newHashMap();
+			for (final String className : nameMaps.values()) {
+				add(packages, getPackage(className), className);
+				add(simpleNames, getSimpleName(className), className);
+			}
+		}
+
+		final List<Candidate> candidates = newArrayList();
+		final List<String> samePackage = packages.get(getPackage(name));
+		if (samePackage != null) {
+			for (final String className : samePackage) {
+				candidates.add(new Candidate(StringUtils.getLevenshteinDistance(name, className), className));
+			}
+		}
+		final List<String> sameSimpleName = simpleNames.get(getSimpleName(name));
+		if (sameSimpleName != null) {
+			for (final String className : sameSimpleName) {
+				if (samePackage == null || !samePackage.contains(className)) {
+					candidates.add(new Candidate(StringUtils.getLevenshteinDistance(name, className), className));
+				}
+			}
+		}
+		return closest(candidates);
+	}
+
+	private synchronized List<String> findMembers(final String className, final String name, final String description) {
+		final List<Candidate> candidates = newArrayList();
+		final Collection<String> hierarchy = newArrayList(depends.get(className));
+		hierarchy.add(className);
+		for (final String owner : hierarchy) {
+			final ByteClass clazz = classes.get(owner);
+			if (clazz == null) {
+				continue;
+			}
+			final String ownerName = nameMaps.get(owner);
+			for (final Signature signature : clazz.getLocalSignatures()) {
+				final Signature mapped = signatureMaps.get(signature);
+				if (mapped == null) {
+					continue;
+				}
+				final String memberName = mapped.getElementName();
+				final boolean sameDescription = signature.getDescriptor().equals(description);
+				candidates.add(new Candidate(
+					StringUtils.getLevenshteinDistance(name, memberName) * 2 + (sameDescription ? 0 : 1),
+					ownerName + '.' + memberName + ' ' + signature.getDescriptor()
+					));
+			}
+		}
+		return closest(candidates);
+	}
+
+	private static List<String> closest(final List<Candidate> candidates) {
+		Collections.sort(candidates);
+		final ImmutableList.Builder<String> names = ImmutableList.builder();
+		for (final Candidate candidate : candidates.subList(0, Math.min(LIMIT, candidates.size()))) {
+			names.add(candidate.name);
+		}
+		return names.build();
+	}
+
+	private static String format(final List<String> names) {
+		return names.isEmpty() ? "No similar names found" : "Closest names: " + names;
+	}
+
+	private static String getPackage(final String className) {
+		final int split = className.lastIndexOf('/');
+		return split == -1 ? "" : className.substring(0, split);
+	}
+
+	private static String getSimpleName(final String className) {
+		return className.substring(className.lastIndexOf('/') + 1).toLowerCase();
+	}
+
+	private static void add(final Map<String, List<String>> index, final String key, final String className) {
+		List<String> classNames = index.get(key);
+		if (classNames == null) {
+			index.put(key, classNames = newArrayList());
+		}
+		classNames.add(className);
+	}
+
+	private static void remove(final Map<String, List<String>> index, final String key, final String className) {
+		final List<String> classNames = index.get(key);
+		if (classNames != null) {
+			classNames.remove(className);
+		}
+	}
+}
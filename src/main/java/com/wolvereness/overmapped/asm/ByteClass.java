@@ -37,6 +37,7 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.Remapper;
 import org.objectweb.asm.commons.RemappingClassAdapter;
 
 import com.google.common.collect.ImmutableList;
@@ -50,18 +51,34 @@ public final class ByteClass {
 	private final String parent;
 	private final List<String> interfaces;
 	private final List<Signature> localSignatures;
+	private final long readNanos;
+	private volatile String visitors;
+	private volatile long writeNanos = -1;
 
 	public ByteClass(final String name, final InputStream data) throws IOException {
+		this(name, data, null, null, null);
+	}
+
+	/**
+	 * Takes the parent, interfaces, and local signatures as given instead of
+	 * parsing them from the class file, unless the interfaces are null.
+	 */
+	ByteClass(
+	          final String name,
+	          final InputStream data,
+	          final String parent,
+	          final List<String> interfaces,
+	          final List<Signature> localSignatures
+	          ) throws
+	          IOException
+	          {
+		final long start = System.nanoTime();
 		Validate.notNull(name, "File name cannot be null");
 		Validate.notNull(data, "InputStream cannot be null");
 		Validate.isTrue(name.toLowerCase().endsWith(FILE_POSTFIX), "File name must be a class file");
 
 		this.token = name.substring(0, name.length() - FILE_POSTFIX.length());
 
-		final MutableObject<String> parent = new MutableObject<String>();
-		final ImmutableList.Builder<String> interfaces = ImmutableList.builder();
-		final ImmutableList.Builder<Signature> localSignatures = ImmutableList.builder();
-
 		try {
 			this.reader = new ClassReader(ByteStreams.toByteArray(data));
 		} finally {
@@ -70,14 +87,24 @@ public final class ByteClass {
 			} catch (final IOException ex) {
 			}
 		}
-		reader.accept(
-			new ClassParser(token, interfaces, parent, localSignatures),
-			ClassReader.SKIP_CODE
-			);
 
-		this.parent = parent.getValue();
-		this.interfaces = interfaces.build();
-		this.localSignatures = localSignatures.build();
+		if (interfaces != null) {
+			this.parent = parent;
+			this.interfaces = interfaces;
+			this.localSignatures = localSignatures;
+		} else {
+			final MutableObject<String> parsedParent = new MutableObject<String>();
+			final ImmutableList.Builder<String> parsedInterfaces = ImmutableList.builder();
+			final ImmutableList.Builder<Signature> parsedSignatures = ImmutableList.builder();
+			reader.accept(
+				new ClassParser(token, parsedInterfaces, parsedParent, parsedSignatures),
+				ClassReader.SKIP_CODE
+				);
+			this.parent = parsedParent.getValue();
+			this.interfaces = parsedInterfaces.build();
+			this.localSignatures = parsedSignatures.build();
+		}
+		this.readNanos = System.nanoTime() - start;
 	}
 
 	/**
@@ -108,18 +135,74 @@ public final class ByteClass {
 		return localSignatures;
 	}
 
+	/**
+	 * @return the length of the original class file, in bytes
+	 */
+	public int getSize() {
+		return reader.b.length;
+	}
+
+	byte[] getBytes() {
+		return reader.b;
+	}
+
+	/**
+	 * Records that the output was reused from a cache, in the specified time.
+	 */
+	void setCached(final long nanos) {
+		this.visitors = "cached";
+		this.writeNanos = nanos;
+	}
+
+	/**
+	 * @return the number of methods declared, including constructors
+	 */
+	public int getMethodCount() {
+		int count = 0;
+		for (final Signature signature : localSignatures) {
+			if (signature.isMethod()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the time taken to read and parse this class, in nanoseconds
+	 */
+	public long getReadNanos() {
+		return readNanos;
+	}
+
+	/**
+	 * @return the time taken by the last remap and write of this class, in
+	 *     nanoseconds, or -1 if it has not been written
+	 */
+	public long getWriteNanos() {
+		return writeNanos;
+	}
+
+	/**
+	 * @return the visitors applied by the last remap and write of this class,
+	 *     or null if it has not been written
+	 */
+	public String getVisitors() {
+		return visitors;
+	}
+
 	public Callable<Pair<ZipEntry, byte[]>> callable(
 	                                                 final Map<Signature, Signature> signatures,
 	                                                 final Map<String, String> classMaps,
 	                                                 final Map<String, ByteClass> classes,
-	                                                 final Map<Signature, Integer> flags,
+	                                                 final FlagTable flags,
+	                                                 final MemberRules rules,
 	                                                 final boolean correctEnums
 	                                                 ) {
 		return new Callable<Pair<ZipEntry, byte[]>>()
 			{
 				@Override
 				public Pair<ZipEntry, byte[]> call() throws Exception {
-					return ByteClass.this.call(signatures, classMaps, classes, flags, correctEnums);
+					return ByteClass.this.call(signatures, classMaps, classes, flags, rules, correctEnums);
 				}
 			};
 	}
@@ -128,26 +211,39 @@ public final class ByteClass {
 	                                   final Map<Signature, Signature> signatures,
 	                                   final Map<String, String> classMaps,
 	                                   final Map<String, ByteClass> classes,
-	                                   final Map<Signature, Integer> flags,
+	                                   final FlagTable flags,
+	                                   final MemberRules rules,
 	                                   final boolean correctEnums
 	                                   ) throws
 	                                   Exception
 	                                   {
+		final long start = System.nanoTime();
 		final ClassWriter writer = new ClassWriter(0);
+		final ClassVisitor corrected = correctEnums ? new EnumCorrection(writer) : writer;
+		final SignatureRemapper remapper = new SignatureRemapper(classMaps, signatures, classes, rules);
 		reader.accept(
 			new FlagSetter(
 				new RemappingClassAdapter(
-					correctEnums ? new EnumCorrection(writer) : writer,
-					new SignatureRemapper(classMaps, signatures, classes)
+					corrected,
+					remapper
 					),
-				flags
+				flags,
+				remapper
 				),
 			ClassReader.EXPAND_FRAMES
 			);
+		final byte[] bytes = writer.toByteArray();
+
+		final StringBuilder visitors = new StringBuilder("FlagSetter");
+		if (correctEnums && "java/lang/Enum".equals(parent)) {
+			visitors.append(", EnumCorrection");
+		}
+		this.visitors = visitors.toString();
+		this.writeNanos = System.nanoTime() - start;
 
 		return new ImmutablePair<ZipEntry, byte[]>(
 			new ZipEntry(classMaps.get(token) + FILE_POSTFIX),
-			writer.toByteArray()
+			bytes
 			);
 	}
 
@@ -220,25 +316,26 @@ final class ClassParser extends ClassVisitor {
 		if (!name.equals(className))
 			throw new IllegalArgumentException(name + " is not " + className);
 
-		for (final String interfaceName : interfacesArray) {
-			if (!(interfaceName.startsWith("java/") || interfaceName.startsWith("javax/"))) {
-				interfaces.add(interfaceName);
-			}
-		}
+		interfaces.add(interfacesArray);
 	}
 }
 
 final class FlagSetter extends ClassVisitor {
 	private final Signature.MutableSignature signature = new Signature.MutableSignature("", "", "");
 	private String className;
-	private final Map<Signature, Integer> flags;
+	private final FlagTable flags;
+	private final Remapper remapper;
+	private boolean flagged;
+	private List<FlagTable.Rule> rules;
 
 	FlagSetter(
 	           final ClassVisitor cv,
-	           final Map<Signature, Integer> flags
+	           final FlagTable flags,
+	           final Remapper remapper
 	           ) {
 		super(ASM4, cv);
 		this.flags = flags;
+		this.remapper = remapper;
 	}
 
 	@Override
@@ -250,6 +347,8 @@ final class FlagSetter extends ClassVisitor {
 	                  final String superName,
 	                  final String[] interfaces
 	                  ) {
+		flagged = flags.isFlagged(name);
+		rules = flags.rulesFor(remapper.map(name));
 		super.visit(version, access, className = name, signature, superName, interfaces);
 	}
 
@@ -261,14 +360,25 @@ final class FlagSetter extends ClassVisitor {
 	                               final String generics,
 	                               final Object value
 	                               ) {
-		return super.visitField(
-			signature.updateAndGet(
+		int flags = access;
+		if (flagged) {
+			flags = signature.updateAndGet(
 				className,
 				name,
 				desc,
-				flags,
-				access
-				),
+				this.flags.getFlags(),
+				flags
+				);
+		}
+		if (!rules.isEmpty()) {
+			final String mappedName = remapper.mapFieldName(className, name, desc);
+			final String mappedDesc = remapper.mapDesc(desc);
+			for (final FlagTable.Rule rule : rules) {
+				flags = rule.apply(mappedName, mappedDesc, flags);
+			}
+		}
+		return super.visitField(
+			flags,
 			name,
 			desc,
 			generics,
@@ -284,14 +394,25 @@ final class FlagSetter extends ClassVisitor {
 	                                 final String generics,
 	                                 final String[] exceptions
 	                                 ) {
-		return super.visitMethod(
-			signature.updateAndGet(
+		int flags = access;
+		if (flagged) {
+			flags = signature.updateAndGet(
 				className,
 				name,
 				desc,
-				flags,
-				access
-				),
+				this.flags.getFlags(),
+				flags
+				);
+		}
+		if (!rules.isEmpty()) {
+			final String mappedName = remapper.mapMethodName(className, name, desc);
+			final String mappedDesc = remapper.mapMethodDesc(desc);
+			for (final FlagTable.Rule rule : rules) {
+				flags = rule.apply(mappedName, mappedDesc, flags);
+			}
+		}
+		return super.visitMethod(
+			flags,
 			name,
 			desc,
 			generics,
@@ -0,0 +1,108 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.asm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads and writes the files kept between runs, such that neither an
+ * interrupted run nor concurrent builds sharing a directory leave a partial
+ * file behind, and a damaged file is only ever a miss.
+ */
+public final class CacheFiles {
+	public interface Reader<T> {
+		/**
+		 * @return the content, or null if it is outdated
+		 */
+		T read(DataInputStream in) throws IOException;
+	}
+
+	public interface Writer {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	private CacheFiles() {
+	}
+
+	/**
+	 * @return the content of the file, or null if the file is missing,
+	 *     outdated, or unreadable
+	 */
+	public static <T> T read(final File file, final Reader<T> reader) {
+		if (!file.exists())
+			return null;
+
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			return reader.read(in);
+		} catch (final IOException ex) {
+			// Unreadable files are simply written again
+			return null;
+		} catch (final RuntimeException ex) {
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (final IOException ex) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes to a unique temporary file in the same directory first, then
+	 * moves it over the file.
+	 */
+	public static void write(final File file, final Writer writer) throws IOException {
+		final File parent = file.getAbsoluteFile().getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory())
+			throw new IOException("Could not create directory " + parent);
+		final File temporary = File.createTempFile(file.getName(), ".tmp", parent);
+
+		boolean written = false;
+		try {
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+			try {
+				writer.write(out);
+			} finally {
+				out.close();
+			}
+			written = true;
+		} finally {
+			if (!written) {
+				temporary.delete();
+			}
+		}
+
+		if (!temporary.renameTo(file)) {
+			file.delete();
+			if (!temporary.renameTo(file)) {
+				temporary.delete();
+				throw new IOException("Could not move " + temporary + " to " + file);
+			}
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.asm;
+
+import static com.google.common.collect.Maps.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Keeps the parent, interfaces, and local signatures of every class of the
+ * input in a file, between runs, such that classes need not be parsed when
+ * their zip entry has the same name, CRC, and size as when indexed.
+ */
+public final class ClassIndex {
+	private static final class Entry {
+		private final long crc;
+		private final long size;
+		private final String parent;
+		private final List<String> interfaces;
+		private final List<Signature> localSignatures;
+
+		Entry(
+		      final long crc,
+		      final long size,
+		      final String parent,
+		      final List<String> interfaces,
+		      final List<Signature> localSignatures
+		      ) {
+			this.crc = crc;
+			this.size = size;
+			this.parent = parent;
+			this.interfaces = interfaces;
+			this.localSignatures = localSignatures;
+		}
+	}
+
+	private static final int FORMAT = 2;
+
+	private final File file;
+	private final Map<String, Entry> indexed;
+	private final ConcurrentMap<String, Entry> entries = newConcurrentMap();
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+
+	/**
+	 * Loads the index from the specified file. A missing or unreadable file
+	 * is an empty index.
+	 *
+	 * @param file the file of the index, or null to only keep it in memory
+	 */
+	public ClassIndex(final File file) {
+		this.file = file;
+		this.indexed = read(file);
+	}
+
+	/**
+	 * Starts from the classes read through an earlier index, instead of a
+	 * file.
+	 *
+	 * @param file the file to write the index to, or null to only keep it in
+	 *     memory
+	 */
+	public ClassIndex(final ClassIndex previous, final File file) {
+		this.file = file;
+		this.indexed = previous.entries;
+	}
+
+	/**
+	 * @return the approximate memory retained by the classes read, in bytes
+	 */
+	public long getRetainedSize() {
+		long size = 0;
+		for (final Map.Entry<String, Entry> entry : entries.entrySet()) {
+			size += RetainedSize.HASH_ENTRY + RetainedSize.header(entry.getKey(), entry.getValue().interfaces, entry.getValue().localSignatures);
+		}
+		return size;
+	}
+
+	/**
+	 * Reads the class of a zip entry, with its header from the index if the
+	 * entry is unchanged. Safe to call from many threads.
+	 *
+	 * @see ByteClass#ByteClass(String, InputStream)
+	 */
+	public ByteClass read(final ZipEntry zipEntry, final InputStream data) throws IOException {
+		final String name = zipEntry.getName();
+		final long crc = zipEntry.getCrc();
+		final long size = zipEntry.getSize();
+		if (crc == -1 || size == -1)
+			return new ByteClass(name, data);
+
+		final Entry entry = indexed.get(name);
+		if (entry != null && entry.crc == crc && entry.size == size) {
+			hits.incrementAndGet();
+			entries.put(name, entry);
+			return new ByteClass(name, data, entry.parent, entry.interfaces, entry.localSignatures);
+		}
+
+		misses.incrementAndGet();
+		final ByteClass clazz = new ByteClass(name, data);
+		entries.put(name, new Entry(crc, size, clazz.getParent(), clazz.getInterfaces(), clazz.getLocalSignatures()));
+		return clazz;
+	}
+
+	/**
+	 * @return the number of classes read with their header from the index
+	 */
+	public int getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of classes parsed
+	 */
+	public int getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Replaces the file with the classes read since loading, unless they
+	 * were all indexed already or there is no file.
+	 */
+	public void write() throws IOException {
+		if (file == null || (misses.get() == 0 && entries.size() == indexed.size()))
+			return;
+
+		CacheFiles.write(file, new CacheFiles.Writer()
+			{
+				@Override
+				public void write(final DataOutputStream out) throws IOException {
+					out.writeInt(FORMAT);
+					out.writeInt(entries.size());
+					for (final Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+						final Entry entry = mapEntry.getValue();
+						out.writeUTF(mapEntry.getKey());
+						out.writeLong(entry.crc);
+						out.writeLong(entry.size);
+						out.writeBoolean(entry.parent != null);
+						if (entry.parent != null) {
+							out.writeUTF(entry.parent);
+						}
+						out.writeInt(entry.interfaces.size());
+						for (final String interfaceName : entry.interfaces) {
+							out.writeUTF(interfaceName);
+						}
+						out.writeInt(entry.localSignatures.size());
+						for (final Signature signature : entry.localSignatures) {
+							out.writeUTF(signature.getElementName());
+							out.writeUTF(signature.getDescriptor());
+						}
+					}
+				}
+			});
+	}
+
+	private static Map<String, Entry> read(final File file) {
+		final Map<String, Entry> entries = file == null ? null : CacheFiles.read(file, new CacheFiles.Reader<Map<String, Entry>>()
+			{
+				@Override
+				public Map<String, Entry> read(final DataInputStream in) throws IOException {
+					if (in.readInt() != FORMAT)
+						return null;
+					final Map<String, Entry> entries = newHashMap();
+					for (int count = in.readInt(); count > 0; count--) {
+						final String name = in.readUTF();
+						final String token = name.substring(0, name.length() - ByteClass.FILE_POSTFIX.length());
+						final long crc = in.readLong();
+						final long size = in.readLong();
+						final String parent = in.readBoolean() ? in.readUTF() : null;
+						final ImmutableList.Builder<String> interfaces = ImmutableList.builder();
+						for (int i = in.readInt(); i > 0; i--) {
+							interfaces.add(in.readUTF());
+						}
+						final ImmutableList.Builder<Signature> localSignatures = ImmutableList.builder();
+						for (int i = in.readInt(); i > 0; i--) {
+							localSignatures.add(new Signature(token, in.readUTF(), in.readUTF()));
+						}
+						entries.put(name, new Entry(crc, size, parent, interfaces.build(), localSignatures.build()));
+					}
+					return entries;
+				}
+			});
+		if (entries == null)
+			return newHashMap();
+		return entries;
+	}
+}
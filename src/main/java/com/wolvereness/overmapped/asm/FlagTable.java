@@ -0,0 +1,154 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.asm;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Sets.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.Validate;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The flags to apply when writing classes, being the exact member flags and
+ * any pattern based flag rules. Rules are evaluated against the final class
+ * name, member name, and descriptor, after exact flags.
+ */
+public final class FlagTable {
+	public static final class Rule {
+		private final Pattern clazz;
+		private final Pattern name;
+		private final Pattern descriptor;
+		private final Integer set;
+		private final int add;
+		private final int remove;
+
+		public Rule(
+		            final Pattern clazz,
+		            final Pattern name,
+		            final Pattern descriptor,
+		            final Integer set,
+		            final int add,
+		            final int remove
+		            ) {
+			Validate.notNull(clazz, "Class pattern cannot be null");
+			Validate.notNull(name, "Name pattern cannot be null");
+			Validate.notNull(descriptor, "Descriptor pattern cannot be null");
+			this.clazz = clazz;
+			this.name = name;
+			this.descriptor = descriptor;
+			this.set = set;
+			this.add = add;
+			this.remove = remove;
+		}
+
+		boolean appliesTo(final String className) {
+			return clazz.matcher(className).find();
+		}
+
+		int apply(
+		          final String name,
+		          final String descriptor,
+		          final int access
+		          ) {
+			if (!this.name.matcher(name).find() || !this.descriptor.matcher(descriptor).find())
+				return access;
+			return ((set != null ? set : access) | add) & ~remove;
+		}
+
+		@Override
+		public String toString() {
+			return clazz.pattern() + ' ' + name.pattern() + ' ' + descriptor.pattern() + ": {set: " + set + ", add: " + add + ", remove: " + remove + "}";
+		}
+	}
+
+	private final Map<Signature, Integer> flags;
+	private final Set<String> flaggedClasses;
+	private final List<Rule> rules;
+	private final Lookups lookups;
+
+	public FlagTable(
+	                 final Map<Signature, Integer> flags,
+	                 final Iterable<Rule> rules
+	                 ) {
+		this.flags = flags;
+		this.rules = ImmutableList.copyOf(rules);
+		this.lookups = null;
+
+		final Set<String> flaggedClasses = newHashSet();
+		for (final Signature signature : flags.keySet()) {
+			flaggedClasses.add(signature.getClassName());
+		}
+		this.flaggedClasses = flaggedClasses;
+	}
+
+	private FlagTable(final FlagTable table, final Lookups lookups) {
+		this.flags = lookups.signatures(table.flags, Lookups.FLAGS, Lookups.FLAGS_PRESENT);
+		this.flaggedClasses = table.flaggedClasses;
+		this.rules = table.rules;
+		this.lookups = lookups;
+	}
+
+	/**
+	 * @return a view of this table that records every lookup made
+	 */
+	FlagTable recording(final Lookups lookups) {
+		return new FlagTable(this, lookups);
+	}
+
+	Map<Signature, Integer> getFlags() {
+		return flags;
+	}
+
+	List<Rule> getRules() {
+		return rules;
+	}
+
+	/**
+	 * @param className the original name of the class
+	 * @return true if any exact flag is set for a member of the class
+	 */
+	boolean isFlagged(final String className) {
+		final boolean flagged = flaggedClasses.contains(className);
+		if (lookups != null) {
+			lookups.record(Lookups.key(Lookups.FLAGGED, className), String.valueOf(flagged));
+		}
+		return flagged;
+	}
+
+	/**
+	 * @param mappedClassName the final name of the class
+	 * @return the rules that may apply to members of the class, in order
+	 */
+	List<Rule> rulesFor(final String mappedClassName) {
+		if (rules.isEmpty())
+			return rules;
+
+		final List<Rule> applicable = newArrayList();
+		for (final Rule rule : rules) {
+			if (rule.appliesTo(mappedClassName)) {
+				applicable.add(rule);
+			}
+		}
+		return applicable;
+	}
+}
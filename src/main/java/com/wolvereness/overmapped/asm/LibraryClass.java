@@ -0,0 +1,203 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.asm;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The parent, interfaces, and overridable methods of a class of a library,
+ * which is never mapped or written. Class files are parsed directly rather
+ * than through a ClassReader, as only their header is needed, and they may
+ * be of any version.
+ */
+public final class LibraryClass {
+	private static final int ACC_PRIVATE = 0x0002;
+	private static final int ACC_STATIC = 0x0008;
+	private static final int ACC_FINAL = 0x0010;
+
+	private final String token;
+	private final String parent;
+	private final List<String> interfaces;
+	private final List<Signature> methods;
+
+	LibraryClass(
+	             final String token,
+	             final String parent,
+	             final List<String> interfaces,
+	             final List<Signature> methods
+	             ) {
+		this.token = token;
+		this.parent = parent;
+		this.interfaces = interfaces;
+		this.methods = methods;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * @return the parent, or null for java/lang/Object
+	 */
+	public String getParent() {
+		return parent;
+	}
+
+	public List<String> getInterfaces() {
+		return interfaces;
+	}
+
+	/**
+	 * @return the methods that a subclass may override, being those that
+	 *     are neither constructors, private, static, nor final
+	 */
+	public List<Signature> getMethods() {
+		return methods;
+	}
+
+	@Override
+	public String toString() {
+		return this.getClass().getName() + "(" + token + " _ " + parent + interfaces + "):" + methods;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the bytes are not a class file
+	 */
+	static LibraryClass parse(final byte[] b) {
+		if (b.length < 10 || readInt(b, 0) != 0xCAFEBABE)
+			throw new IllegalArgumentException("Not a class file");
+
+		final int count = readUnsignedShort(b, 8);
+		final int[] offsets = new int[count];
+		int index = 10;
+		for (int i = 1; i < count; i++) {
+			offsets[i] = index + 1;
+			final int tag = b[index] & 0xFF;
+			switch (tag) {
+			case 1: // Utf8
+				index += 3 + readUnsignedShort(b, index + 1);
+				break;
+			case 5: // Long
+			case 6: // Double
+				index += 9;
+				i++;
+				break;
+			case 15: // MethodHandle
+				index += 4;
+				break;
+			case 3: // Integer
+			case 4: // Float
+			case 9: // Fieldref
+			case 10: // Methodref
+			case 11: // InterfaceMethodref
+			case 12: // NameAndType
+			case 17: // Dynamic
+			case 18: // InvokeDynamic
+				index += 5;
+				break;
+			case 7: // Class
+			case 8: // String
+			case 16: // MethodType
+			case 19: // Module
+			case 20: // Package
+				index += 3;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+			}
+		}
+
+		final String token = readClass(b, offsets, index + 2);
+		final int parentIndex = readUnsignedShort(b, index + 4);
+		final String parent = parentIndex == 0 ? null : readClass(b, offsets, index + 4);
+		final ImmutableList.Builder<String> interfaces = ImmutableList.builder();
+		final int interfaceCount = readUnsignedShort(b, index + 6);
+		index += 8;
+		for (int i = 0; i < interfaceCount; i++, index += 2) {
+			interfaces.add(readClass(b, offsets, index));
+		}
+
+		index = skipMembers(b, index);
+
+		final ImmutableList.Builder<Signature> methods = ImmutableList.builder();
+		final int methodCount = readUnsignedShort(b, index);
+		index += 2;
+		for (int i = 0; i < methodCount; i++) {
+			final int access = readUnsignedShort(b, index);
+			final String name = readUtf8(b, offsets, index + 2);
+			if ((access & (ACC_PRIVATE | ACC_STATIC | ACC_FINAL)) == 0 && !name.startsWith("<")) {
+				methods.add(new Signature(token, name, readUtf8(b, offsets, index + 4)));
+			}
+			index = skipAttributes(b, index + 6);
+		}
+
+		return new LibraryClass(token, parent, interfaces.build(), methods.build());
+	}
+
+	private static int skipMembers(final byte[] b, int index) {
+		final int count = readUnsignedShort(b, index);
+		index += 2;
+		for (int i = 0; i < count; i++) {
+			index = skipAttributes(b, index + 6);
+		}
+		return index;
+	}
+
+	private static int skipAttributes(final byte[] b, int index) {
+		final int count = readUnsignedShort(b, index);
+		index += 2;
+		for (int i = 0; i < count; i++) {
+			index += 6 + readInt(b, index + 2);
+		}
+		return index;
+	}
+
+	private static String readClass(final byte[] b, final int[] offsets, final int index) {
+		return readUtf8(b, offsets, offsets[readUnsignedShort(b, index)]);
+	}
+
+	/**
+	 * Decodes the modified UTF-8 of the constant at the index.
+	 */
+	private static String readUtf8(final byte[] b, final int[] offsets, final int index) {
+		final int offset = offsets[readUnsignedShort(b, index)];
+		final int end = offset + 2 + readUnsignedShort(b, offset);
+		final char[] chars = new char[end - offset - 2];
+		int length = 0;
+		for (int i = offset + 2; i < end;) {
+			final int c = b[i++] & 0xFF;
+			if (c < 0x80) {
+				chars[length++] = (char) c;
+			} else if (c < 0xE0) {
+				chars[length++] = (char) (((c & 0x1F) << 6) | (b[i++] & 0x3F));
+			} else {
+				chars[length++] = (char) (((c & 0x0F) << 12) | ((b[i++] & 0x3F) << 6) | (b[i++] & 0x3F));
+			}
+		}
+		return new String(chars, 0, length);
+	}
+
+	private static int readUnsignedShort(final byte[] b, final int index) {
+		return ((b[index] & 0xFF) << 8) | (b[index + 1] & 0xFF);
+	}
+
+	private static int readInt(final byte[] b, final int index) {
+		return ((b[index] & 0xFF) << 24) | ((b[index + 1] & 0xFF) << 16) | ((b[index + 2] & 0xFF) << 8) | (b[index + 3] & 0xFF);
+	}
+}
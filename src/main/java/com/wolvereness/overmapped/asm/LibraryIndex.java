@@ -0,0 +1,211 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.asm;
+
+import static com.google.common.collect.Maps.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * The classes of a library jar or jmod. The classes of each artifact are
+ * kept in a directory between runs, in a file named by the hash of the
+ * artifact, such that an artifact is only parsed the first time it is seen.
+ */
+public final class LibraryIndex {
+	private static final int FORMAT = 1;
+	private static final String JMOD_POSTFIX = ".jmod";
+	private static final String JMOD_CLASSES = "classes/";
+	private static final String META_INF = "META-INF/";
+	private static final String MODULE_INFO = "module-info.class";
+
+	private final String hash;
+	private final Map<String, LibraryClass> classes;
+	private final boolean indexed;
+
+	private LibraryIndex(final String hash, final Map<String, LibraryClass> classes, final boolean indexed) {
+		this.hash = hash;
+		this.classes = classes;
+		this.indexed = indexed;
+	}
+
+	/**
+	 * @return the hash that identifies the content of the artifact
+	 */
+	public static String hash(final File artifact) throws IOException {
+		return Files.hash(artifact, Hashing.sha1()).toString();
+	}
+
+	/**
+	 * Reads the classes of an artifact from its index, or parses them and
+	 * writes the index. An unreadable index is written again.
+	 *
+	 * @param hash the hash of the artifact
+	 * @param directory the directory of indexes, or null to parse the
+	 *     artifact without keeping an index
+	 */
+	public static LibraryIndex read(final File artifact, final String hash, final File directory) throws IOException {
+		final File file = directory == null ? null : new File(directory, hash);
+		if (file != null) {
+			final Map<String, LibraryClass> classes = read(file);
+			if (classes != null)
+				return new LibraryIndex(hash, classes, true);
+		}
+
+		final LibraryIndex index = new LibraryIndex(hash, parse(artifact), false);
+		if (file != null) {
+			index.write(file);
+		}
+		return index;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	/**
+	 * @return every class of the artifact, by token
+	 */
+	public Map<String, LibraryClass> getClasses() {
+		return classes;
+	}
+
+	/**
+	 * @return true if the classes were read from an index
+	 */
+	public boolean isIndexed() {
+		return indexed;
+	}
+
+	/**
+	 * @return the approximate memory retained by the classes, in bytes
+	 */
+	public long getRetainedSize() {
+		long size = 0;
+		for (final LibraryClass clazz : classes.values()) {
+			size += RetainedSize.HASH_ENTRY + RetainedSize.header(clazz.getToken(), clazz.getInterfaces(), clazz.getMethods());
+		}
+		return size;
+	}
+
+	/**
+	 * Classes of jmods are read from their classes section. Versioned
+	 * classes of multi-release jars, and module descriptors, are skipped.
+	 */
+	private static Map<String, LibraryClass> parse(final File artifact) throws IOException {
+		final boolean jmod = artifact.getName().toLowerCase().endsWith(JMOD_POSTFIX);
+		final Map<String, LibraryClass> classes = newLinkedHashMap();
+		final ZipFile zip = new ZipFile(artifact);
+		try {
+			final Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (jmod) {
+					if (!name.startsWith(JMOD_CLASSES)) {
+						continue;
+					}
+					name = name.substring(JMOD_CLASSES.length());
+				}
+				if (!ByteClass.isClass(name) || name.startsWith(META_INF) || name.endsWith(MODULE_INFO)) {
+					continue;
+				}
+
+				final LibraryClass clazz;
+				try {
+					clazz = LibraryClass.parse(ByteStreams.toByteArray(zip.getInputStream(entry)));
+				} catch (final RuntimeException ex) {
+					throw new IOException("Could not parse " + entry.getName() + " in " + artifact, ex);
+				}
+				if (!classes.containsKey(clazz.getToken())) {
+					classes.put(clazz.getToken(), clazz);
+				}
+			}
+		} finally {
+			zip.close();
+		}
+		return classes;
+	}
+
+	private void write(final File file) throws IOException {
+		CacheFiles.write(file, new CacheFiles.Writer()
+			{
+				@Override
+				public void write(final DataOutputStream out) throws IOException {
+					out.writeInt(FORMAT);
+					out.writeInt(classes.size());
+					for (final LibraryClass clazz : classes.values()) {
+						out.writeUTF(clazz.getToken());
+						out.writeBoolean(clazz.getParent() != null);
+						if (clazz.getParent() != null) {
+							out.writeUTF(clazz.getParent());
+						}
+						out.writeInt(clazz.getInterfaces().size());
+						for (final String interfaceName : clazz.getInterfaces()) {
+							out.writeUTF(interfaceName);
+						}
+						out.writeInt(clazz.getMethods().size());
+						for (final Signature signature : clazz.getMethods()) {
+							out.writeUTF(signature.getElementName());
+							out.writeUTF(signature.getDescriptor());
+						}
+					}
+				}
+			});
+	}
+
+	/**
+	 * @return the indexed classes, or null if the file is missing or
+	 *     unreadable
+	 */
+	private static Map<String, LibraryClass> read(final File file) {
+		return CacheFiles.read(file, new CacheFiles.Reader<Map<String, LibraryClass>>()
+			{
+				@Override
+				public Map<String, LibraryClass> read(final DataInputStream in) throws IOException {
+					if (in.readInt() != FORMAT)
+						return null;
+					final Map<String, LibraryClass> classes = newLinkedHashMap();
+					for (int count = in.readInt(); count > 0; count--) {
+						final String token = in.readUTF();
+						final String parent = in.readBoolean() ? in.readUTF() : null;
+						final ImmutableList.Builder<String> interfaces = ImmutableList.builder();
+						for (int i = in.readInt(); i > 0; i--) {
+							interfaces.add(in.readUTF());
+						}
+						final ImmutableList.Builder<Signature> methods = ImmutableList.builder();
+						for (int i = in.readInt(); i > 0; i--) {
+							methods.add(new Signature(token, in.readUTF(), in.readUTF()));
+						}
+						classes.put(token, new LibraryClass(token, parent, interfaces.build(), methods.build()));
+					}
+					return classes;
+				}
+			});
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.asm;
+
+import static com.google.common.collect.Maps.*;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The lookups made while remapping a single class, with their results. The
+ * remapped class is a function of its bytes and these results alone, so an
+ * earlier output may be reused while every lookup still has the same result.
+ */
+final class Lookups {
+	static final String CLASS_NAME = "c";
+	static final String HIERARCHY = "h";
+	static final String SIGNATURE = "s";
+	static final String SIGNATURE_PRESENT = "k";
+	static final String FLAGS = "f";
+	static final String FLAGS_PRESENT = "g";
+	static final String FLAGGED = "F";
+	static final String LIBRARY = "l";
+	static final String LIBRARY_PRESENT = "m";
+	static final String ROOTS = "r";
+	static final String ROOTS_PRESENT = "q";
+
+	private final Map<List<String>, String> lookups;
+
+	Lookups() {
+		lookups = newHashMap();
+	}
+
+	Lookups(final Map<List<String>, String> lookups) {
+		this.lookups = lookups;
+	}
+
+	Map<List<String>, String> getLookups() {
+		return lookups;
+	}
+
+	void record(final List<String> key, final String result) {
+		lookups.put(key, result);
+	}
+
+	static List<String> key(final String kind, final String name) {
+		return ImmutableList.of(kind, name);
+	}
+
+	static List<String> key(final String kind, final Signature signature) {
+		return ImmutableList.of(kind, signature.getClassName(), signature.getElementName(), signature.getDescriptor());
+	}
+
+	static String result(final Object value) {
+		return value == null ? null : value.toString();
+	}
+
+	static String hierarchy(final ByteClass clazz) {
+		return clazz == null ? null : clazz.getParent() + " " + clazz.getInterfaces();
+	}
+
+	/**
+	 * @return the result the lookup has against the specified structures
+	 */
+	static String lookup(
+	                     final List<String> key,
+	                     final Map<Signature, Signature> signatures,
+	                     final Map<String, String> classMaps,
+	                     final Map<String, ByteClass> classes,
+	                     final FlagTable flags,
+	                     final MemberRules rules
+	                     ) {
+		final String kind = key.get(0);
+		if (kind.equals(CLASS_NAME))
+			return classMaps.get(key.get(1));
+		if (kind.equals(HIERARCHY))
+			return hierarchy(classes.get(key.get(1)));
+		if (kind.equals(FLAGGED))
+			return String.valueOf(flags.isFlagged(key.get(1)));
+
+		final Signature signature = new Signature(key.get(1), key.get(2), key.get(3));
+		if (kind.equals(SIGNATURE))
+			return result(signatures.get(signature));
+		if (kind.equals(SIGNATURE_PRESENT))
+			return String.valueOf(signatures.containsKey(signature));
+		if (kind.equals(LIBRARY))
+			return rules == null ? null : rules.getLibraryMembers().get(signature);
+		if (kind.equals(LIBRARY_PRESENT))
+			return String.valueOf(rules != null && rules.getLibraryMembers().containsKey(signature));
+		if (kind.equals(ROOTS))
+			return rules == null ? null : result(rules.getGroupRoots().get(signature));
+		if (kind.equals(ROOTS_PRESENT))
+			return String.valueOf(rules != null && rules.getGroupRoots().containsKey(signature));
+		if (kind.equals(FLAGS))
+			return result(flags.getFlags().get(signature));
+		if (kind.equals(FLAGS_PRESENT))
+			return String.valueOf(flags.getFlags().containsKey(signature));
+		throw new IllegalArgumentException("Unknown lookup " + key);
+	}
+
+	Map<String, String> classMaps(final Map<String, String> classMaps) {
+		return new ForwardingMap<String, String>()
+			{
+				@Override
+				protected Map<String, String> delegate() {
+					return classMaps;
+				}
+
+				@Override
+				public String get(final Object key) {
+					final String value = classMaps.get(key);
+					record(key(CLASS_NAME, (String) key), value);
+					return value;
+				}
+			};
+	}
+
+	Map<String, ByteClass> classes(final Map<String, ByteClass> classes) {
+		return new ForwardingMap<String, ByteClass>()
+			{
+				@Override
+				protected Map<String, ByteClass> delegate() {
+					return classes;
+				}
+
+				@Override
+				public ByteClass get(final Object key) {
+					final ByteClass value = classes.get(key);
+					record(key(HIERARCHY, (String) key), hierarchy(value));
+					return value;
+				}
+			};
+	}
+
+	/**
+	 * Keys may be mutable signatures, so each is recorded by its contents.
+	 *
+	 * @param kind the kind of lookup recorded by get
+	 * @param presentKind the kind of lookup recorded by containsKey
+	 */
+	<T> Map<Signature, T> signatures(final Map<Signature, T> signatures, final String kind, final String presentKind) {
+		return new ForwardingMap<Signature, T>()
+			{
+				@Override
+				protected Map<Signature, T> delegate() {
+					return signatures;
+				}
+
+				@Override
+				public T get(final Object key) {
+					final T value = signatures.get(key);
+					record(key(kind, (Signature) key), result(value));
+					return value;
+				}
+
+				@Override
+				public boolean containsKey(final Object key) {
+					final boolean value = signatures.containsKey(key);
+					record(key(presentKind, (Signature) key), String.valueOf(value));
+					return value;
+				}
+			};
+	}
+}
@@ -0,0 +1,318 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.asm;
+
+import static com.google.common.collect.Lists.*;
+import static com.google.common.collect.Maps.*;
+import static com.google.common.collect.Sets.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.Validate;
+import org.objectweb.asm.commons.Remapper;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A compiled set of pattern based member renames. Rules are not applied to
+ * the signature maps; instead, they are evaluated when a member is
+ * encountered while writing classes, against the final class name, member
+ * name, and descriptor.
+ */
+public final class MemberRules {
+	public static final class Rule {
+		private final Pattern clazz;
+		private final Pattern name;
+		private final Pattern descriptor;
+		private final String replacement;
+
+		public Rule(
+		            final Pattern clazz,
+		            final Pattern name,
+		            final Pattern descriptor,
+		            final String replacement
+		            ) {
+			Validate.notNull(clazz, "Class pattern cannot be null");
+			Validate.notNull(name, "Name pattern cannot be null");
+			Validate.notNull(descriptor, "Descriptor pattern cannot be null");
+			Validate.notNull(replacement, "Replacement cannot be null");
+			this.clazz = clazz;
+			this.name = name;
+			this.descriptor = descriptor;
+			this.replacement = replacement;
+		}
+
+		/**
+		 * @return the new name, or the name unchanged if this rule does not apply
+		 */
+		String apply(
+		             final Iterable<String> classNames,
+		             final String name,
+		             final String descriptor
+		             ) {
+			if (!this.descriptor.matcher(descriptor).find())
+				return name;
+			final Matcher matcher = this.name.matcher(name);
+			if (!matcher.find())
+				return name;
+			for (final String className : classNames) {
+				if (clazz.matcher(className).find())
+					return matcher.replaceAll(replacement);
+			}
+			return name;
+		}
+
+		@Override
+		public String toString() {
+			return clazz.pattern() + ' ' + name.pattern() + ' ' + descriptor.pattern() + ": " + replacement;
+		}
+	}
+
+	private final List<Rule> rules;
+	private final Map<Signature, Signature> signatures;
+	private final Map<String, ByteClass> classes;
+	private final Map<Signature, String> libraryMembers;
+	private final Iterable<List<Signature>> groups;
+	private final Map<Signature, List<String>> groupRoots;
+
+	/**
+	 * @param libraryMembers the signatures of library methods, which keep
+	 *     their name
+	 * @param groups the override groups of the methods, each of which must
+	 *     keep a single name
+	 */
+	public MemberRules(
+	                   final Iterable<Rule> rules,
+	                   final Map<Signature, Signature> signatures,
+	                   final Map<String, ByteClass> classes,
+	                   final Map<Signature, String> libraryMembers,
+	                   final Iterable<List<Signature>> groups
+	                   ) {
+		this.rules = ImmutableList.copyOf(rules);
+		this.signatures = signatures;
+		this.classes = classes;
+		this.libraryMembers = libraryMembers;
+		this.groups = groups;
+
+		final Map<Signature, List<String>> groupRoots = newHashMap();
+		final Set<String> roots = newLinkedHashSet();
+		for (final List<Signature> group : groups) {
+			for (final Signature member : group) {
+				if (signatures.containsKey(member)) {
+					addRoots(member.getClassName(), member.getElementName(), member.getDescriptor(), roots);
+				}
+			}
+			final List<String> rootList = ImmutableList.copyOf(roots);
+			for (final Signature member : group) {
+				groupRoots.put(member, rootList);
+			}
+			roots.clear();
+		}
+		this.groupRoots = groupRoots;
+	}
+
+	private MemberRules(final MemberRules rules, final Lookups lookups) {
+		this.rules = rules.rules;
+		this.signatures = lookups.signatures(rules.signatures, Lookups.SIGNATURE, Lookups.SIGNATURE_PRESENT);
+		this.classes = lookups.classes(rules.classes);
+		this.libraryMembers = lookups.signatures(rules.libraryMembers, Lookups.LIBRARY, Lookups.LIBRARY_PRESENT);
+		this.groups = rules.groups;
+		this.groupRoots = lookups.signatures(rules.groupRoots, Lookups.ROOTS, Lookups.ROOTS_PRESENT);
+	}
+
+	/**
+	 * @return a view of these rules that records every lookup made
+	 */
+	MemberRules recording(final Lookups lookups) {
+		return new MemberRules(this, lookups);
+	}
+
+	List<Rule> getRules() {
+		return rules;
+	}
+
+	Map<Signature, String> getLibraryMembers() {
+		return libraryMembers;
+	}
+
+	Map<Signature, List<String>> getGroupRoots() {
+		return groupRoots;
+	}
+
+	String mapMethodName(
+	                     final Remapper remapper,
+	                     final String owner,
+	                     final String name,
+	                     final String desc,
+	                     final String mappedName
+	                     ) {
+		final Signature signature = new Signature(owner, name, desc);
+		if (name.startsWith("<") || !signatures.containsKey(signature) || libraryMembers.containsKey(signature))
+			return mappedName;
+
+		final List<String> groupRoots = this.groupRoots.get(signature);
+		if (groupRoots != null)
+			return apply(remapper, groupRoots, owner, name, desc, mappedName, remapper.mapMethodDesc(desc));
+		final Set<String> roots = newLinkedHashSet();
+		addRoots(owner, name, desc, roots);
+		return apply(remapper, roots, owner, name, desc, mappedName, remapper.mapMethodDesc(desc));
+	}
+
+	String mapFieldName(
+	                    final Remapper remapper,
+	                    final String declaringOwner,
+	                    final String name,
+	                    final String desc,
+	                    final String mappedName
+	                    ) {
+		if (!signatures.containsKey(new Signature(declaringOwner, name, desc)))
+			return mappedName;
+
+		return apply(remapper, ImmutableList.of(declaringOwner), declaringOwner, name, desc, mappedName, remapper.mapDesc(desc));
+	}
+
+	private String apply(
+	                     final Remapper remapper,
+	                     final Iterable<String> owners,
+	                     final String owner,
+	                     final String name,
+	                     final String desc,
+	                     final String mappedName,
+	                     final String mappedDesc
+	                     ) {
+		final List<String> mappedOwners = newArrayList();
+		for (final String unmappedOwner : owners) {
+			mappedOwners.add(remapper.map(unmappedOwner));
+		}
+
+		String newName = mappedName;
+		for (final Rule rule : rules) {
+			newName = rule.apply(mappedOwners, newName, mappedDesc);
+		}
+		return newName;
+	}
+
+	/**
+	 * Applies the rules to every member of every class, including the
+	 * methods a class inherits, such that a rule renaming a member onto a
+	 * name in use is found before any class is written. Names are compared
+	 * after the rules, so a name may be taken over from a member that a rule
+	 * renames away.
+	 *
+	 * @return a sorted message for every member that has the name of another
+	 *     member of its class after the rules, and for every override group
+	 *     that the rules leave with more than one name
+	 */
+	public List<String> findCollisions(final Map<String, String> classMaps) {
+		final SignatureRemapper remapper = new SignatureRemapper(classMaps, signatures, classes, this);
+		final Map<Signature, Signature> occupants = newHashMap();
+		final Map<Signature, String> names = newHashMap();
+		final List<String> collisions = newArrayList();
+		for (final Map.Entry<Signature, Signature> entry : signatures.entrySet()) {
+			final Signature signature = entry.getKey();
+			if (signature.isConstructor()) {
+				continue;
+			}
+			final String name = signature.isMethod()
+				? remapper.mapMethodName(signature.getClassName(), signature.getElementName(), signature.getDescriptor())
+				: remapper.mapFieldName(signature.getClassName(), signature.getElementName(), signature.getDescriptor());
+			names.put(signature, name);
+			final Signature occupant = occupants.put(signature.forElementName(name), signature);
+			if (occupant != null) {
+				// Name the member that a rule renames first
+				final boolean ruled = !name.equals(entry.getValue().getElementName());
+				final Signature renamed = ruled ? signature : occupant;
+				final Signature other = ruled ? occupant : signature;
+				collisions.add(String.format(
+					"Cannot map %s (currently %s) by rule to %s, as %s (currently %s) is mapped to it as well",
+					renamed,
+					signatures.get(renamed).getElementName(),
+					name,
+					other,
+					signatures.get(other).getElementName()
+					));
+			}
+		}
+
+		final Map<String, String> groupNames = newTreeMap();
+		final Set<String> mappedNames = newHashSet();
+		for (final List<Signature> group : groups) {
+			for (final Signature member : group) {
+				final String name = names.get(member);
+				if (name == null) {
+					continue;
+				}
+				groupNames.put(member.toString(), name);
+				mappedNames.add(signatures.get(member).getElementName());
+			}
+			// Groups the maps already split are reported by findParents
+			if (mappedNames.size() == 1 && newHashSet(groupNames.values()).size() > 1) {
+				collisions.add(String.format(
+					"Cannot map methods overriding `%s' by rule to different names %s",
+					group.get(0).getElementName() + ' ' + group.get(0).getDescriptor(),
+					groupNames
+					));
+			}
+			groupNames.clear();
+			mappedNames.clear();
+		}
+		Collections.sort(collisions);
+		return collisions;
+	}
+
+	/**
+	 * Methods are matched against the classes that originally declare them,
+	 * such that every reference to an inherited method is renamed alike.
+	 * Methods of an override group are matched against the roots of the
+	 * whole group instead.
+	 */
+	private void addRoots(
+	                      final String clazz,
+	                      final String name,
+	                      final String desc,
+	                      final Set<String> roots
+	                      ) {
+		final ByteClass byteClass = classes.get(clazz);
+		boolean inherited = false;
+		if (byteClass != null) {
+			inherited |= addRootsFrom(byteClass.getParent(), name, desc, roots);
+			for (final String interfaceName : byteClass.getInterfaces()) {
+				inherited |= addRootsFrom(interfaceName, name, desc, roots);
+			}
+		}
+		if (!inherited) {
+			roots.add(clazz);
+		}
+	}
+
+	private boolean addRootsFrom(
+	                             final String parent,
+	                             final String name,
+	                             final String desc,
+	                             final Set<String> roots
+	                             ) {
+		if (parent == null || !signatures.containsKey(new Signature(parent, name, desc)))
+			return false;
+		addRoots(parent, name, desc, roots);
+		return true;
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.asm;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Keeps the remapped output of every class in a directory, between runs. An
+ * entry stores the hash of the class file, the lookups made remapping it,
+ * and the output; it is reused while the class file is unchanged and every
+ * lookup still has the same result. Entries are keyed by class name, and
+ * written by the task remapping that class.
+ */
+public final class RemapCache {
+	private static final int FORMAT = 4;
+	private static final HashFunction HASH = Hashing.sha1();
+	private static final Charset UTF8 = Charset.forName("UTF8");
+
+	private final File directory;
+	private final byte[] configuration;
+	private final FlagTable flags;
+	private final MemberRules rules;
+	private final boolean correctEnums;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+
+	/**
+	 * Rules are matched against final names, so they are part of every
+	 * entry rather than recorded as lookups.
+	 *
+	 * @param plugin identifies the build of the plugin, such as the hash of
+	 *     its jar, such that a rebuilt plugin never reuses entries
+	 */
+	public RemapCache(
+	                  final File directory,
+	                  final String plugin,
+	                  final FlagTable flags,
+	                  final MemberRules rules,
+	                  final boolean correctEnums
+	                  ) {
+		this.directory = directory;
+		this.flags = flags;
+		this.rules = rules;
+		this.correctEnums = correctEnums;
+
+		final Hasher configuration = HASH.newHasher()
+			.putInt(FORMAT)
+			.putString(plugin, UTF8)
+			.putBoolean(correctEnums)
+			.putString(flags.getRules().toString(), UTF8)
+			.putString(rules == null ? "null" : rules.getRules().toString(), UTF8);
+		this.configuration = configuration.hash().asBytes();
+	}
+
+	/**
+	 * Remaps the class, or reuses its output from the last run.
+	 *
+	 * @see ByteClass#call(Map, Map, Map, FlagTable, MemberRules, boolean)
+	 */
+	public Pair<ZipEntry, byte[]> call(
+	                                   final ByteClass clazz,
+	                                   final Map<Signature, Signature> signatures,
+	                                   final Map<String, String> classMaps,
+	                                   final Map<String, ByteClass> classes
+	                                   ) throws
+	                                   Exception
+	                                   {
+		final long start = System.nanoTime();
+		final File file = getFile(clazz.getToken());
+		final byte[] hash = HASH.hashBytes(clazz.getBytes()).asBytes();
+
+		final Pair<ZipEntry, byte[]> cached = read(file, hash, signatures, classMaps, classes);
+		if (cached != null) {
+			clazz.setCached(System.nanoTime() - start);
+			hits.incrementAndGet();
+			return cached;
+		}
+
+		final Lookups lookups = new Lookups();
+		final Pair<ZipEntry, byte[]> entry = clazz.call(
+			lookups.signatures(signatures, Lookups.SIGNATURE, Lookups.SIGNATURE_PRESENT),
+			lookups.classMaps(classMaps),
+			lookups.classes(classes),
+			flags.recording(lookups),
+			rules == null ? null : rules.recording(lookups),
+			correctEnums
+			);
+		write(file, hash, lookups, entry);
+		misses.incrementAndGet();
+		return entry;
+	}
+
+	/**
+	 * @return the number of classes reused from the last run
+	 */
+	public int getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of classes remapped
+	 */
+	public int getMisses() {
+		return misses.get();
+	}
+
+	private File getFile(final String token) {
+		final String name = HASH.hashString(token, UTF8).toString();
+		return new File(new File(directory, name.substring(0, 2)), name.substring(2));
+	}
+
+	/**
+	 * @return the cached output, or null if there is none still valid
+	 */
+	private Pair<ZipEntry, byte[]> read(
+	                                    final File file,
+	                                    final byte[] hash,
+	                                    final Map<Signature, Signature> signatures,
+	                                    final Map<String, String> classMaps,
+	                                    final Map<String, ByteClass> classes
+	                                    ) {
+		return CacheFiles.read(file, new CacheFiles.Reader<Pair<ZipEntry, byte[]>>()
+			{
+				@Override
+				public Pair<ZipEntry, byte[]> read(final DataInputStream in) throws IOException {
+					if (in.readInt() != FORMAT || !Arrays.equals(readBytes(in), configuration) || !Arrays.equals(readBytes(in), hash))
+						return null;
+					for (int lookups = in.readInt(); lookups > 0; lookups--) {
+						final String[] key = new String[in.readInt()];
+						for (int i = 0; i < key.length; i++) {
+							key[i] = in.readUTF();
+						}
+						final String result = in.readBoolean() ? in.readUTF() : null;
+						final String current = Lookups.lookup(ImmutableList.copyOf(key), signatures, classMaps, classes, flags, rules);
+						if (result == null ? current != null : !result.equals(current))
+							return null;
+					}
+					final String name = in.readUTF();
+					return new ImmutablePair<ZipEntry, byte[]>(new ZipEntry(name), readBytes(in));
+				}
+			});
+	}
+
+	private void write(
+	                   final File file,
+	                   final byte[] hash,
+	                   final Lookups lookups,
+	                   final Pair<ZipEntry, byte[]> entry
+	                   ) throws
+	                   IOException
+	                   {
+		CacheFiles.write(file, new CacheFiles.Writer()
+			{
+				@Override
+				public void write(final DataOutputStream out) throws IOException {
+					out.writeInt(FORMAT);
+					writeBytes(out, configuration);
+					writeBytes(out, hash);
+					out.writeInt(lookups.getLookups().size());
+					for (final Map.Entry<List<String>, String> lookup : lookups.getLookups().entrySet()) {
+						out.writeInt(lookup.getKey().size());
+						for (final String part : lookup.getKey()) {
+							out.writeUTF(part);
+						}
+						out.writeBoolean(lookup.getValue() != null);
+						if (lookup.getValue() != null) {
+							out.writeUTF(lookup.getValue());
+						}
+					}
+					out.writeUTF(entry.getLeft().getName());
+					writeBytes(out, entry.getRight());
+				}
+			});
+	}
+
+	private static byte[] readBytes(final DataInputStream in) throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.asm;
+
+import java.util.List;
+
+/**
+ * Estimates of retained sizes, assuming a 64-bit JVM with compressed
+ * references.
+ */
+public final class RetainedSize {
+	public static final int OBJECT = 16;
+	public static final int REFERENCE = 4;
+	public static final int ARRAY = 16;
+	public static final int HASH_ENTRY = 32;
+	public static final int BI_ENTRY = 40;
+	public static final int SIGNATURE = OBJECT + 3 * REFERENCE + 4;
+	public static final int BYTE_CLASS = OBJECT + 5 * REFERENCE;
+	public static final int ZIP_ENTRY = 96;
+
+	private RetainedSize() {
+	}
+
+	public static long string(final String string) {
+		return OBJECT + REFERENCE + 4 + ARRAY + 2L * string.length();
+	}
+
+	/**
+	 * @return the size of the header of a class, as kept by a {@link
+	 *     ByteClass} or an index, not counting a parent shared with other
+	 *     classes
+	 */
+	public static long header(final String token, final List<String> interfaces, final List<Signature> signatures) {
+		long size = BYTE_CLASS + string(token) + ARRAY + REFERENCE * interfaces.size();
+		for (final Signature signature : signatures) {
+			size += REFERENCE + SIGNATURE + string(signature.getElementName()) + string(signature.getDescriptor());
+		}
+		return size;
+	}
+}
@@ -1,5 +1,7 @@
 package com.wolvereness.overmapped.asm;
 
+import static com.google.common.collect.Maps.*;
+
 import java.util.Map;
 
 import org.objectweb.asm.commons.Remapper;
@@ -8,28 +10,49 @@ import com.wolvereness.overmapped.asm.Signature.MutableSignature;
 
 final class SignatureRemapper extends Remapper {
 	private final MutableSignature signature = new Signature.MutableSignature("", "", "");
+	private final MutableSignature ruleSignature = new Signature.MutableSignature("", "", "");
+	private final Map<Signature, String> ruleCache = newHashMap();
 	private final Map<Signature, Signature> signatures;
 	private final Map<String, ByteClass> classes;
 	private final Map<String, String> classMaps;
+	private final MemberRules rules;
 
 	SignatureRemapper(
 	                  final Map<String, String> classMaps,
 	                  final Map<Signature, Signature> signatures,
-	                  final Map<String, ByteClass> classes
+	                  final Map<String, ByteClass> classes,
+	                  final MemberRules rules
 	                  ) {
 		this.classMaps = classMaps;
 		this.signatures = signatures;
 		this.classes = classes;
+		this.rules = rules;
 	}
 
 	@Override
 	public String mapMethodName(final String owner, final String name, final String desc) {
-		return signature.update(owner, name, desc, signatures).getElementName();
+		final String mappedName = signature.update(owner, name, desc, signatures).getElementName();
+		if (rules == null)
+			return mappedName;
+
+		String ruledName = ruleCache.get(ruleSignature.update(owner, name, desc));
+		if (ruledName == null) {
+			ruleCache.put(ruleSignature.forElementName(name), ruledName = rules.mapMethodName(this, owner, name, desc, mappedName));
+		}
+		return ruledName;
 	}
 
 	@Override
 	public String mapFieldName(final String owner, final String name, final String desc) {
-		return signature.update(owner, name, desc, signatures, classes).getElementName();
+		final String mappedName = signature.update(owner, name, desc, signatures, classes).getElementName();
+		if (rules == null)
+			return mappedName;
+
+		String ruledName = ruleCache.get(ruleSignature.update(owner, name, desc));
+		if (ruledName == null) {
+			ruleCache.put(ruleSignature.forElementName(name), ruledName = rules.mapFieldName(this, signature.getClassName(), name, desc, mappedName));
+		}
+		return ruledName;
 	}
 
 	@Override
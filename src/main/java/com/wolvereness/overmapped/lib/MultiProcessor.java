@@ -22,6 +22,7 @@ import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -36,13 +37,29 @@ import com.google.common.collect.ImmutableList;
 
 public abstract class MultiProcessor {
 	volatile boolean shutdown;
+	final TraceRecorder tracer;
+
+	MultiProcessor(final TraceRecorder tracer) {
+		this.tracer = tracer;
+	}
 
 	public static MultiProcessor newMultiProcessor(final int threads, final ThreadFactory factory) {
+		return newMultiProcessor(threads, factory, null);
+	}
+
+	/**
+	 * @param tracer records a span for every task, may be null
+	 */
+	public static MultiProcessor newMultiProcessor(final int threads, final ThreadFactory factory, final TraceRecorder tracer) {
 		Validate.isTrue(threads >= 0, "Cannot have negative threads");
-		return threads == 0 ? new SingletonProcessor() : new ProperProcessor(threads, factory);
+		return threads == 0 ? new SingletonProcessor(tracer) : new ProperProcessor(threads, factory, tracer);
 
 	}
 
+	static String getName(final String name, final Callable<?> task) {
+		return name != null ? name : task.getClass().getName();
+	}
+
 	public void shutdown() {
 		shutdown = true;
 	}
@@ -52,16 +69,60 @@ public abstract class MultiProcessor {
 			throw new IllegalStateException("Cannot submit tasks to shutdown processor");
 	}
 
-	public abstract <T> Future<T> submit(final Callable<T> task);
+	public final <T> Future<T> submit(final Callable<T> task) {
+		return submit(null, task);
+	}
+
+	/**
+	 * @param name the name of the task when traced, may be null
+	 */
+	public abstract <T> Future<T> submit(final String name, final Callable<T> task);
+
+	/**
+	 * Creates a processor that runs its tasks on the threads of this one,
+	 * but with a queue of its own, such that waiting for one of its tasks
+	 * only ever runs its own tasks. Shutting down a view leaves the threads
+	 * running; it is never traced.
+	 */
+	public abstract MultiProcessor newView();
+
+	/**
+	 * @return the threads that run tasks, not including callers waiting on
+	 *     a task
+	 */
+	public abstract Collection<Thread> getThreads();
 }
 
 final class SingletonProcessor extends MultiProcessor {
 
+	SingletonProcessor(final TraceRecorder tracer) {
+		super(tracer);
+	}
+
+	@Override
+	public MultiProcessor newView() {
+		return new SingletonProcessor(null);
+	}
+
 	@Override
-	public <T> Future<T> submit(final Callable<T> task) {
+	public Collection<Thread> getThreads() {
+		return ImmutableList.of();
+	}
+
+	@Override
+	public <T> Future<T> submit(final String name, final Callable<T> task) {
 		super.checkShutdown();
+		final TraceRecorder tracer = this.tracer;
+		final long start = tracer == null ? 0 : tracer.begin();
 		try {
-			final T object = task.call();
+			final T object;
+			try {
+				object = task.call();
+			} finally {
+				if (tracer != null) {
+					tracer.end(getName(name, task), TraceRecorder.CALLER, start);
+				}
+			}
 			return new Future<T>()
 				{
 					@Override
@@ -132,12 +193,14 @@ final class ProperProcessor extends MultiProcessor {
 		private static final int DONE = WAITING + 1;
 		private static final int EXCEPTION = DONE + 1;
 		private static final int CANCELLED = EXCEPTION + 1;
+		final String name;
 		final Callable<T> callable;
 		private Throwable exception;
 		private T value;
 		volatile int state;
 
-		Task(final Callable<T> callable) {
+		Task(final String name, final Callable<T> callable) {
+			this.name = name;
 			this.callable = callable;
 		}
 
@@ -154,7 +217,7 @@ final class ProperProcessor extends MultiProcessor {
 		@Override
 		public boolean isDone() {
 			final int state = this.state;
-			return state == DONE || state == CANCELLED;
+			return state == DONE || state == EXCEPTION || state == CANCELLED;
 		}
 
 		@Override
@@ -176,7 +239,7 @@ final class ProperProcessor extends MultiProcessor {
 						impatientlyWait();
 						continue;
 					case READY:
-						handle();
+						handle(TraceRecorder.CALLER);
 						continue;
 					default:
 						throw new AssertionError("Unexpected value of state: " + this.state);
@@ -184,9 +247,16 @@ final class ProperProcessor extends MultiProcessor {
 			}
 		}
 
-		void handle() {
+		void handle(final String category) {
 			if (STATE_UPDATER.compareAndSet(this, READY, PROCESSING)) {
-				calculate();
+				final TraceRecorder tracer = ProperProcessor.this.tracer;
+				if (tracer == null) {
+					calculate();
+				} else {
+					final long start = tracer.begin();
+					calculate();
+					tracer.end(getName(name, callable), category, start);
+				}
 			}
 		}
 
@@ -212,13 +282,20 @@ final class ProperProcessor extends MultiProcessor {
 
 				final Task<?> t = queue.poll();
 				if (t != null) {
-					t.handle();
+					t.handle(TraceRecorder.IMPATIENT);
 				} else {
 					break;
 				}
 			}
 
-			patientlyWait();
+			final TraceRecorder tracer = ProperProcessor.this.tracer;
+			if (tracer == null) {
+				patientlyWait();
+			} else {
+				final long start = tracer.begin();
+				patientlyWait();
+				tracer.end(getName(name, callable), TraceRecorder.WAIT, start);
+			}
 		}
 
 		private synchronized void patientlyWait() throws InterruptedException {
@@ -232,16 +309,37 @@ final class ProperProcessor extends MultiProcessor {
 			this.notifyAll();
 		}
 
+		/**
+		 * Fails the task with a throwable that escaped handling it, unless
+		 * it is already complete.
+		 */
+		void fail(final Throwable ex) {
+			if (isDone())
+				return;
+			this.exception = ex;
+			notifyWaitting(EXCEPTION);
+		}
+
 		@Override
 		public T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
 			throw new UnsupportedOperationException("Cannot time waiting for a MultiProcessor");
 		}
 	}
 
-	private final BlockingQueue<Task<?>> queue = new LinkedBlockingQueue<Task<?>>();
+	private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<Task<?>>();
+	/**
+	 * Holds the queue of every task submitted to this processor or its
+	 * views, in order of submission, such that the threads take tasks from
+	 * every view in turn.
+	 */
+	private final BlockingQueue<Queue<Task<?>>> tickets;
 	private final Collection<Thread> threads;
+	private final boolean view;
 
-	public ProperProcessor(int threadCount, final ThreadFactory factory) {
+	public ProperProcessor(int threadCount, final ThreadFactory factory, final TraceRecorder tracer) {
+		super(tracer);
+		this.tickets = new LinkedBlockingQueue<Queue<Task<?>>>();
+		this.view = false;
 		final ImmutableList.Builder<Thread> threads = ImmutableList.builder();
 		while (threadCount-- >= 1) {
 			final Thread thread = factory.newThread(
@@ -249,10 +347,20 @@ final class ProperProcessor extends MultiProcessor {
 					{
 						@Override
 						public void run() {
-							final BlockingQueue<Task<?>> queue = ProperProcessor.this.queue;
+							final BlockingQueue<Queue<Task<?>>> tickets = ProperProcessor.this.tickets;
 							try {
 								while (!shutdown) {
-									queue.take().handle();
+									final Task<?> task = tickets.take().poll();
+									if (task == null) {
+										// Already taken by a caller waiting on its tasks
+										continue;
+									}
+									try {
+										task.handle(TraceRecorder.WORKER);
+									} catch (final Throwable ex) {
+										// Fails the task rather than the thread, which may be shared
+										task.fail(ex);
+									}
 								}
 							} catch (final InterruptedException ex) {
 								if (!shutdown)
@@ -267,7 +375,7 @@ final class ProperProcessor extends MultiProcessor {
 		final Iterator<Thread> it = (this.threads = threads.build()).iterator();
 		final Thread initial = it.next();
 		if (it.hasNext()) {
-			submit(new Callable<Object>()
+			submit("startThreads", new Callable<Object>()
 				{
 					@Override
 					public Object call() throws Exception {
@@ -281,6 +389,23 @@ final class ProperProcessor extends MultiProcessor {
 		initial.start();
 	}
 
+	private ProperProcessor(final ProperProcessor processor) {
+		super(null);
+		this.tickets = processor.tickets;
+		this.threads = processor.threads;
+		this.view = true;
+	}
+
+	@Override
+	public MultiProcessor newView() {
+		return new ProperProcessor(this);
+	}
+
+	@Override
+	public Collection<Thread> getThreads() {
+		return threads;
+	}
+
 	@Override
 	public void shutdown() {
 		if (shutdown)
@@ -296,16 +421,19 @@ final class ProperProcessor extends MultiProcessor {
 				break;
 			}
 		}
+		if (view)
+			return;
 		for (final Thread thread : threads) {
 			thread.interrupt();
 		}
 	}
 
 	@Override
-	public <T> Future<T> submit(final Callable<T> callable) {
+	public <T> Future<T> submit(final String name, final Callable<T> callable) {
 		super.checkShutdown();
-		final Task<T> task = new Task<T>(callable);
+		final Task<T> task = new Task<T>(name, callable);
 		queue.add(task);
+		tickets.add(queue);
 		return task;
 	}
 }
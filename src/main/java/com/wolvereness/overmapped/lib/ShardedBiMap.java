@@ -0,0 +1,176 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.lib;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.Validate;
+
+import com.google.common.base.Function;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+
+/**
+ * A bi-map split into independent shards, where the shard for a key or value
+ * is chosen by a router. A key and its value must always route to the same
+ * shard. Separate shards may be modified concurrently, but any single shard
+ * may only be modified by one thread at a time.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class ShardedBiMap<K, V> extends AbstractMap<K, V> implements BiMap<K, V> {
+	private final List<BiMap<K, V>> shards;
+	private final Function<Object, Integer> keyRouter;
+	private final Function<Object, Integer> valueRouter;
+	private final ShardedBiMap<V, K> inverse;
+	private final Set<Map.Entry<K, V>> entrySet = new AbstractSet<Map.Entry<K, V>>()
+		{
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator() {
+				final ImmutableList.Builder<Iterator<Map.Entry<K, V>>> iterators = ImmutableList.builder();
+				for (final BiMap<K, V> shard : shards) {
+					iterators.add(shard.entrySet().iterator());
+				}
+				return Iterators.concat(iterators.build().iterator());
+			}
+
+			@Override
+			public int size() {
+				return ShardedBiMap.this.size();
+			}
+		};
+
+	/**
+	 * @param shards the backing maps, each of which should start empty
+	 * @param keyRouter provides the index of the shard for a key, or null if there is no such shard
+	 * @param valueRouter provides the index of the shard for a value, or null if there is no such shard
+	 */
+	public ShardedBiMap(
+	                    final List<? extends BiMap<K, V>> shards,
+	                    final Function<Object, Integer> keyRouter,
+	                    final Function<Object, Integer> valueRouter
+	                    ) {
+		Validate.notEmpty(shards, "Must have at least one shard");
+		Validate.notNull(keyRouter, "Key router cannot be null");
+		Validate.notNull(valueRouter, "Value router cannot be null");
+		this.shards = ImmutableList.copyOf(shards);
+		this.keyRouter = keyRouter;
+		this.valueRouter = valueRouter;
+		this.inverse = new ShardedBiMap<V, K>(this);
+	}
+
+	private ShardedBiMap(final ShardedBiMap<V, K> inverse) {
+		final ImmutableList.Builder<BiMap<K, V>> shards = ImmutableList.builder();
+		for (final BiMap<V, K> shard : inverse.shards) {
+			shards.add(shard.inverse());
+		}
+		this.shards = shards.build();
+		this.keyRouter = inverse.valueRouter;
+		this.valueRouter = inverse.keyRouter;
+		this.inverse = inverse;
+	}
+
+	public int getShardCount() {
+		return shards.size();
+	}
+
+	private BiMap<K, V> shardFor(final Function<Object, Integer> router, final Object object) {
+		final Integer index = router.apply(object);
+		return index == null ? null : shards.get(index);
+	}
+
+	private BiMap<K, V> shardForPut(final K key, final V value) {
+		final BiMap<K, V> shard = shardFor(keyRouter, key);
+		if (shard == null)
+			throw new IllegalArgumentException("No shard for key " + key);
+		if (shard != shardFor(valueRouter, value))
+			throw new IllegalArgumentException("Key " + key + " and value " + value + " do not share a shard");
+		return shard;
+	}
+
+	@Override
+	public V get(final Object key) {
+		final BiMap<K, V> shard = shardFor(keyRouter, key);
+		return shard == null ? null : shard.get(key);
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		final BiMap<K, V> shard = shardFor(keyRouter, key);
+		return shard != null && shard.containsKey(key);
+	}
+
+	@Override
+	public boolean containsValue(final Object value) {
+		final BiMap<K, V> shard = shardFor(valueRouter, value);
+		return shard != null && shard.containsValue(value);
+	}
+
+	@Override
+	public V put(final K key, final V value) {
+		return shardForPut(key, value).put(key, value);
+	}
+
+	@Override
+	public V forcePut(final K key, final V value) {
+		return shardForPut(key, value).forcePut(key, value);
+	}
+
+	@Override
+	public V remove(final Object key) {
+		final BiMap<K, V> shard = shardFor(keyRouter, key);
+		return shard == null ? null : shard.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		for (final BiMap<K, V> shard : shards) {
+			shard.clear();
+		}
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (final BiMap<K, V> shard : shards) {
+			size += shard.size();
+		}
+		return size;
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return entrySet;
+	}
+
+	@Override
+	public Set<V> values() {
+		return inverse.keySet();
+	}
+
+	@Override
+	public BiMap<V, K> inverse() {
+		return inverse;
+	}
+}
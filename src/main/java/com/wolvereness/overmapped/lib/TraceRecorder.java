@@ -0,0 +1,148 @@
+/*
+ * This file is part of OverMapped.
+ *
+ * OverMapped is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OverMapped is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with OverMapped.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wolvereness.overmapped.lib;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records spans of work by thread, to be written in the Chrome trace-event
+ * format. Recording is lock-free, and may be done from any thread.
+ */
+public final class TraceRecorder {
+	/**
+	 * A task run by a processor thread.
+	 */
+	public static final String WORKER = "worker";
+	/**
+	 * A task run by the thread waiting for it.
+	 */
+	public static final String CALLER = "caller";
+	/**
+	 * A task run by a thread while it waits for a different task.
+	 */
+	public static final String IMPATIENT = "impatientlyWait";
+	/**
+	 * A thread blocked waiting for a task run by another thread.
+	 */
+	public static final String WAIT = "wait";
+
+	private static final class Span {
+		final String name;
+		final String category;
+		final long thread;
+		final long start;
+		final long end;
+
+		Span(
+		     final String name,
+		     final String category,
+		     final long thread,
+		     final long start,
+		     final long end
+		     ) {
+			this.name = name;
+			this.category = category;
+			this.thread = thread;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	private final long origin = System.nanoTime();
+	private final Queue<Span> spans = new ConcurrentLinkedQueue<Span>();
+	private final Map<Long, String> threadNames = new ConcurrentHashMap<Long, String>();
+
+	/**
+	 * @return the time to later pass to {@link #end(String, String, long)}
+	 */
+	public long begin() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records a span on the current thread from the specified start until now.
+	 */
+	public void end(final String name, final String category, final long start) {
+		final long end = System.nanoTime();
+		final Thread thread = Thread.currentThread();
+		final Long id = thread.getId();
+		if (!threadNames.containsKey(id)) {
+			threadNames.put(id, thread.getName());
+		}
+		spans.add(new Span(name, category, id, start, end));
+	}
+
+	/**
+	 * Writes every span recorded thus far as a JSON object of trace events,
+	 * with times in microseconds.
+	 */
+	public void write(final Appendable out) throws IOException {
+		out.append("{\"traceEvents\":[\n");
+		boolean first = true;
+		for (final Map.Entry<Long, String> thread : threadNames.entrySet()) {
+			first = separate(out, first);
+			out.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(thread.getKey().toString());
+			out.append(",\"args\":{\"name\":");
+			quote(out, thread.getValue());
+			out.append("}}");
+		}
+		for (final Span span : spans) {
+			first = separate(out, first);
+			out.append("{\"name\":");
+			quote(out, span.name);
+			out.append(",\"cat\":");
+			quote(out, span.category);
+			out.append(",\"ph\":\"X\",\"pid\":1,\"tid\":").append(Long.toString(span.thread));
+			out.append(",\"ts\":").append(Long.toString(TimeUnit.NANOSECONDS.toMicros(span.start - origin)));
+			out.append(",\"dur\":").append(Long.toString(TimeUnit.NANOSECONDS.toMicros(span.end - span.start)));
+			out.append('}');
+		}
+		out.append("\n]}\n");
+	}
+
+	private static boolean separate(final Appendable out, final boolean first) throws IOException {
+		if (!first) {
+			out.append(",\n");
+		}
+		return false;
+	}
+
+	private static void quote(final Appendable out, final String string) throws IOException {
+		out.append('"');
+		for (int i = 0; i < string.length(); i++) {
+			final char c = string.charAt(i);
+			switch (c) {
+				case '"':
+				case '\\':
+					out.append('\\').append(c);
+					break;
+				default:
+					if (c < ' ') {
+						out.append(String.format("\\u%04x", (int) c));
+					} else {
+						out.append(c);
+					}
+			}
+		}
+		out.append('"');
+	}
+}